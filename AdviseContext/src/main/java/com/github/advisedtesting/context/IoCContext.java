@@ -35,7 +35,7 @@ import org.aopalliance.intercept.MethodInterceptor;
 import com.github.advisedtesting.context.internal.IoCContextAdvice;
 import com.github.advisedtesting.core.ObjectFactory;
 
-@Target({ ElementType.METHOD, ElementType.CONSTRUCTOR, ElementType.FIELD, ElementType.PARAMETER })
+@Target({ ElementType.TYPE, ElementType.METHOD, ElementType.CONSTRUCTOR, ElementType.FIELD, ElementType.PARAMETER })
 @Retention(RUNTIME)
 @Documented
 @Repeatable(IoCContexts.class)
@@ -72,6 +72,24 @@ public @interface IoCContext {
    */
   Class<? extends ObjectFactory> objectFactoryClass() default ObjectFactory.class;
 
+  /**
+   * If true the context is not built until the test first looks an object up in it, typically through a test parameter
+   * typed {@link java.util.function.Supplier}. A lazy context that the test never reads is never built.
+   * 
+   * @return true to defer building the context, false by default.
+   */
+  boolean lazy() default false;
+
+  /**
+   * If true the context is built once and shared, through {@link com.github.advisedtesting.core.internal.SharedObjectFactories},
+   * by every test and test class declaring the same classes and object factory class, under the same classloader. It is
+   * kept while no test holds it, until the test context is closed, unless the advisedtesting.shared.idle system property
+   * bounds how many idle contexts are kept. Ignored for {@link #lazy()} contexts.
+   * 
+   * @return true to share the context across the suite, false by default.
+   */
+  boolean shared() default false;
+
   /**
    * {@link #implementedBy()} returns a Class that implements {@link org.aopalliance.intercept.MethodInterceptor}. This field will
    * be accessed via reflection so the name must be exact. If the class also implements {@link java.io.Closeable} the
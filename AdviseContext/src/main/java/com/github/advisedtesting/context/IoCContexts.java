@@ -24,13 +24,14 @@ package com.github.advisedtesting.context;
 
 import static java.lang.annotation.ElementType.CONSTRUCTOR;
 import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
 import java.lang.annotation.Documented;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 
-@Target({ METHOD, CONSTRUCTOR })
+@Target({ TYPE, METHOD, CONSTRUCTOR })
 @Retention(RUNTIME)
 @Documented
 public @interface IoCContexts {
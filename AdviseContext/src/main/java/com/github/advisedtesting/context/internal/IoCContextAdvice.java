@@ -22,35 +22,160 @@
  */
 package com.github.advisedtesting.context.internal;
 
+import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
-import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 
 import com.github.advisedtesting.context.IoCContext;
+import com.github.advisedtesting.core.AsyncContextAwareMethodInvocation;
+import com.github.advisedtesting.core.AsyncMethodInterceptor;
 import com.github.advisedtesting.core.ContextAwareMethodInvocation;
 import com.github.advisedtesting.core.ObjectFactory;
+import com.github.advisedtesting.core.PreparingMethodInterceptor;
+import com.github.advisedtesting.core.internal.DeferredObjectFactory;
+import com.github.advisedtesting.core.internal.LazyObjectFactory;
+import com.github.advisedtesting.core.internal.SetupBarrier;
+import com.github.advisedtesting.core.internal.SharedObjectFactories;
+import com.github.advisedtesting.core.internal.SharedObjectFactories.Lease;
+
+/**
+ * Builds the spring context described by an {@link IoCContext}. The context is built while the runner prepares the test's
+ * advices, so several contexts on a test are built concurrently; the test's thread context classloader is still used to
+ * load the context. Contexts marked {@link IoCContext#lazy()} are instead built the first time a test looks an object up
+ * in them, and contexts marked {@link IoCContext#shared()} are leased from the {@link SharedObjectFactories} for the
+ * duration of the test.
+ */
+public class IoCContextAdvice implements AsyncMethodInterceptor, PreparingMethodInterceptor {
+
+  /**
+   * Lazy contexts are not prepared, they are only built on first lookup. Shared contexts are not prepared either, they
+   * are usually built already.
+   */
+  @Override
+  public Object prepare(Annotation annotation, ClassLoader classLoader) throws ClassNotFoundException {
+    IoCContext context = (IoCContext) annotation;
+    return context.lazy() || context.shared() ? null : build(context, classLoader);
+  }
+
+  @Override
+  public void discard(Annotation annotation, Object prepared) {
+    ((SpringContextObjectFactory) prepared).close();
+  }
+
+  @Override
+  public CompletionStage<Object> invokeAsync(AsyncContextAwareMethodInvocation invocation) {
+    IoCContext annotation = (IoCContext) invocation.getTargetAnnotation();
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    if (annotation.lazy()) {
+      invocation.registerObjectFactory(lazy(annotation, classLoader));
+      return invocation.proceedAsync(null);
+    }
+    if (annotation.shared()) {
+      CompletableFuture<Lease> lease = CompletableFuture.supplyAsync(() -> {
+        try {
+          return share(annotation, classLoader);
+        } catch (Throwable th) {
+          throw new CompletionException(th);
+        }
+      }, invocation.getExecutor());
+      CompletableFuture<ObjectFactory> setup = lease.thenApply(Lease::getObjectFactory);
+      invocation.registerObjectFactory(new DeferredObjectFactory(setup));
+      return invocation.proceedAsync(setup).whenComplete((result, failure) -> lease.thenAccept(Lease::close));
+    }
+    CompletableFuture<ObjectFactory> setup = invocation.getPreparation().thenApplyAsync(prepared -> {
+      try {
+        return preparedOrBuild(prepared, annotation, classLoader);
+      } catch (ClassNotFoundException ex) {
+        throw new CompletionException(ex);
+      }
+    }, invocation.getExecutor()).toCompletableFuture();
+    // registered now, so the context keeps its priority whatever order the contexts finish building in.
+    invocation.registerObjectFactory(new DeferredObjectFactory(setup));
+    return invocation.proceedAsync(setup);
+  }
 
-public class IoCContextAdvice implements MethodInterceptor {
   @Override
   public Object invoke(MethodInvocation invocation) throws Throwable {
-    if (ContextAwareMethodInvocation.class.isAssignableFrom(invocation.getClass())) {
+    if (AsyncContextAwareMethodInvocation.class.isAssignableFrom(invocation.getClass())) {
+      return AsyncMethodInterceptor.super.invoke(invocation);
+    } else if (ContextAwareMethodInvocation.class.isAssignableFrom(invocation.getClass())) {
       ContextAwareMethodInvocation cinvocation = ((ContextAwareMethodInvocation) invocation);
-      ObjectFactory objectFactory =
-              new SpringContextObjectFactory(sanitize(((IoCContext) cinvocation.getTargetAnnotation()).classes()));
-      cinvocation.registerObjectFactory(objectFactory);
+      IoCContext annotation = (IoCContext) cinvocation.getTargetAnnotation();
+      if (annotation.lazy()) {
+        cinvocation.registerObjectFactory(lazy(annotation, Thread.currentThread().getContextClassLoader()));
+        return invocation.proceed();
+      }
+      if (annotation.shared()) {
+        try (Lease lease = share(annotation, Thread.currentThread().getContextClassLoader())) {
+          cinvocation.registerObjectFactory(lease.getObjectFactory());
+          return invocation.proceed();
+        }
+      }
+      Object prepared = SetupBarrier.await(cinvocation.getPreparation());
+      cinvocation.registerObjectFactory(preparedOrBuild(prepared, annotation,
+              Thread.currentThread().getContextClassLoader()));
       return invocation.proceed();
     } else {
       throw new IllegalStateException(
               "This MethodInterceptor must be passed an instance of " + ContextAwareMethodInvocation.class.getName());
     }
   }
+
+  /**
+   * Use the prepared context only if it was built with the classloader the test is actually running with, an outer advice
+   * that is not a {@link PreparingMethodInterceptor} may have swapped it.
+   */
+  private ObjectFactory preparedOrBuild(Object prepared, IoCContext annotation, ClassLoader classLoader)
+          throws ClassNotFoundException {
+    if (prepared instanceof SpringContextObjectFactory) {
+      SpringContextObjectFactory factory = (SpringContextObjectFactory) prepared;
+      if (factory.getClassLoader() == classLoader) {
+        return factory;
+      }
+      factory.close();
+    }
+    return build(annotation, classLoader);
+  }
+
+  private LazyObjectFactory lazy(IoCContext annotation, ClassLoader classLoader) {
+    return new LazyObjectFactory(() -> {
+      try {
+        return build(annotation, classLoader);
+      } catch (ClassNotFoundException ex) {
+        throw new IllegalStateException("Could not load the classes of " + annotation, ex);
+      }
+    });
+  }
+
+  /**
+   * Shared contexts are keyed by everything that determines their contents, the name only matters to lookups.
+   */
+  private Lease share(IoCContext annotation, ClassLoader classLoader) throws Throwable {
+    List<Object> key = Arrays.asList(IoCContext.class.getName(), Arrays.asList(annotation.classes()),
+            annotation.objectFactoryClass(), classLoader);
+    return SharedObjectFactories.acquire(key, () -> build(annotation, classLoader));
+  }
+
+  private SpringContextObjectFactory build(IoCContext annotation, ClassLoader classLoader) throws ClassNotFoundException {
+    ClassLoader previous = Thread.currentThread().getContextClassLoader();
+    Thread.currentThread().setContextClassLoader(classLoader);
+    try {
+      return new SpringContextObjectFactory(classLoader, sanitize(classLoader, annotation.classes()));
+    } finally {
+      Thread.currentThread().setContextClassLoader(previous);
+    }
+  }
   
-  private List<Class<?>> sanitize(Class<?>... classes) throws ClassNotFoundException {
+  private List<Class<?>> sanitize(ClassLoader classLoader, Class<?>... classes) throws ClassNotFoundException {
     List<Class<?>> output = new ArrayList<>();
     for (Class<?> clazz : classes) {
-      output.add(Thread.currentThread().getContextClassLoader().loadClass(clazz.getName()));
+      output.add(classLoader.loadClass(clazz.getName()));
     }
     return output;
   }
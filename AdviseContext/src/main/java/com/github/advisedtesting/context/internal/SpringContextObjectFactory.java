@@ -22,30 +22,67 @@
  */
 package com.github.advisedtesting.context.internal;
 
+import java.io.Closeable;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
+import com.github.advisedtesting.core.AdviceNotifier;
 import com.github.advisedtesting.core.ObjectFactory;
 
-public class SpringContextObjectFactory implements ObjectFactory {
+public class SpringContextObjectFactory implements ObjectFactory, Closeable {
 
   private final ApplicationContext context;
+  private final ClassLoader classLoader;
+  private final AtomicBoolean closed = new AtomicBoolean(false);
   
   public SpringContextObjectFactory(Class<?>... classes) {
+    this(Thread.currentThread().getContextClassLoader(), classes);
+  }
+  
+  public SpringContextObjectFactory(List<Class<?>> classes) {
+    this(classes.toArray(new Class[] {}));
+  }
+
+  /**
+   * Build and refresh a context, loading it's beans with a specific classloader rather than the current thread's.
+   * 
+   * @param classLoader used by the context.
+   * @param classes configuration classes defining the context.
+   */
+  public SpringContextObjectFactory(ClassLoader classLoader, Class<?>... classes) {
     AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
     context.register(classes);
-    context.setClassLoader(Thread.currentThread().getContextClassLoader());
+    context.setClassLoader(classLoader);
     context.refresh();
     this.context = context;
+    this.classLoader = classLoader;
+    AdviceNotifier.contextOpened(context);
   }
-  
-  public SpringContextObjectFactory(List<Class<?>> classes) {
-    this(classes.toArray(new Class[] {}));
+
+  public SpringContextObjectFactory(ClassLoader classLoader, List<Class<?>> classes) {
+    this(classLoader, classes.toArray(new Class[] {}));
   }
   
+  public ClassLoader getClassLoader() {
+    return classLoader;
+  }
+
+  @Override
+  public void close() {
+    if (closed.getAndSet(true)) {
+      return;
+    }
+    if (context instanceof ConfigurableApplicationContext) {
+      ((ConfigurableApplicationContext) context).close();
+    }
+    AdviceNotifier.contextClosed(context);
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public <T> T getObject(Class<T> type) {
@@ -24,6 +24,9 @@ package com.github.advisedtesting.context;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.context.ApplicationContext;
@@ -37,6 +40,7 @@ public class TestIoCContextAdvice {
   private static final String BILL = "bill";
   private static final String TED = "ted";
   private static final String BOB = "bob";
+  private static final AtomicReference<ApplicationContext> SHARED = new AtomicReference<>();
 
   @Test
   @IoCContext(classes = { AppConfiguration.class })
@@ -64,4 +68,26 @@ public class TestIoCContextAdvice {
     assertThat(bill).isNotNull().isEqualTo(BILL).isNotSameAs(tedsBill);
     assertThat(ted).isSameAs(TED);
   }
+
+  @Test
+  @IoCContext(name = BOB, classes = { AppConfiguration.class }, lazy = true)
+  public void testLazyIoCContext(@IoCContext(name = BOB) Supplier<TestBean> bean,
+          @IoCContext(name = BOB, instance = BILL) Supplier<String> bill) {
+    assertThat(bean.get()).isNotNull().isSameAs(bean.get());
+    assertThat(bill.get()).isEqualTo(BILL);
+  }
+
+  @Test
+  @IoCContext(name = BOB, classes = { AppConfiguration.class }, shared = true)
+  public void testSharedIoCContext(ApplicationContext context) {
+    SHARED.compareAndSet(null, context);
+    assertThat(context).isNotNull().isSameAs(SHARED.get());
+  }
+
+  @Test
+  @IoCContext(name = TED, classes = { AppConfiguration.class }, shared = true)
+  public void testSharedIoCContextAgain(ApplicationContext context) {
+    SHARED.compareAndSet(null, context);
+    assertThat(context).isNotNull().isSameAs(SHARED.get());
+  }
 }
@@ -0,0 +1,88 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.resource;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+import com.github.advisedtesting.resource.internal.ExclusiveResourceAdvice;
+
+/**
+ * Marks a test as using a resource shared with other tests, a port, a system property or a directory for instance. Tests
+ * reading a resource run concurrently with each other, a test writing it runs alone. Every other test is unaffected.
+ * Repeat the annotation for a test needing several resources, they are all locked in a single, deadlock free, order.
+ * Declared on a test class, the resource is held while the whole class runs, and its tests need not lock it again; a test
+ * may not write a resource its class only reads, nor lock a resource whose key sorts before one its class holds, as
+ * locking out of order could deadlock against another class.
+ */
+@Target({ TYPE, METHOD })
+@Retention(RUNTIME)
+@Documented
+@Repeatable(ExclusiveResources.class)
+public @interface ExclusiveResource {
+
+  /**
+   * How a test uses a resource.
+   */
+  enum Mode {
+    /**
+     * Shared with other readers.
+     */
+    READ,
+    /**
+     * Exclusive of any other reader or writer.
+     */
+    WRITE
+  }
+
+  /**
+   * Identifies the resource, any tests using the same key are coordinated.
+   * 
+   * @return the resource's key.
+   */
+  String key();
+
+  /**
+   * How the test uses the resource.
+   * 
+   * @return {@link Mode#WRITE} by default.
+   */
+  Mode mode() default Mode.WRITE;
+
+  /**
+   * {@link #implementedBy()} returns a Class that implements {@link org.aopalliance.intercept.MethodInterceptor}. This field will
+   * be accessed via reflection so the name must be exact.
+   * 
+   * @return the {@link MethodInterceptor} used to lock the resource, should never need to be changed.
+   */
+  Class<? extends MethodInterceptor> implementedBy() default ExclusiveResourceAdvice.class;
+
+}
@@ -0,0 +1,61 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.resource;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+import com.github.advisedtesting.resource.internal.ExclusiveResourceAdvice;
+
+/**
+ * Container of repeated {@link ExclusiveResource} annotations. Unlike most containers it is an advice itself, so that all
+ * the resources of a test are locked together, in order.
+ */
+@Target({ TYPE, METHOD })
+@Retention(RUNTIME)
+@Documented
+public @interface ExclusiveResources {
+
+  /**
+   * The resources.
+   * 
+   * @return the resources a test uses.
+   */
+  ExclusiveResource[] value();
+
+  /**
+   * {@link #implementedBy()} returns a Class that implements {@link org.aopalliance.intercept.MethodInterceptor}. This field will
+   * be accessed via reflection so the name must be exact.
+   * 
+   * @return the {@link MethodInterceptor} used to lock the resources, should never need to be changed.
+   */
+  Class<? extends MethodInterceptor> implementedBy() default ExclusiveResourceAdvice.class;
+
+}
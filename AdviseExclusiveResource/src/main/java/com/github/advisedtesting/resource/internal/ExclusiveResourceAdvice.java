@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.resource.internal;
+
+import java.lang.annotation.Annotation;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import com.github.advisedtesting.core.ContextAwareMethodInvocation;
+import com.github.advisedtesting.core.ObjectFactory;
+import com.github.advisedtesting.core.internal.ResourceBudget;
+import com.github.advisedtesting.core.internal.SimpleObjectFactory;
+import com.github.advisedtesting.resource.ExclusiveResource;
+import com.github.advisedtesting.resource.ExclusiveResource.Mode;
+import com.github.advisedtesting.resource.ExclusiveResources;
+
+/**
+ * Holds the {@link ResourceLocks} of an {@link ExclusiveResource}, or of every resource of an {@link ExclusiveResources},
+ * while the rest of the chain runs. Resources already held by enclosing advice, on the test class for instance, are not
+ * locked again, and writing one that enclosing advice only reads is refused. So that every thread locks in the one order
+ * {@link ResourceLocks} relies on, a resource sorting before one held by enclosing advice is refused too. The test's
+ * {@link ResourceBudget} is given back while waiting for the locks, so a blocked test does not keep others from running.
+ */
+public class ExclusiveResourceAdvice implements MethodInterceptor {
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    if (!(invocation instanceof ContextAwareMethodInvocation)) {
+      throw new IllegalStateException(
+              "This MethodInterceptor must be passed an instance of " + ContextAwareMethodInvocation.class.getName());
+    }
+    ContextAwareMethodInvocation cinvocation = (ContextAwareMethodInvocation) invocation;
+    ObjectFactory level = cinvocation.getCurrentContextFactory();
+    HeldResources found = level.getObject(HeldResources.class);
+    HeldResources holds = found != null && found.isAt(level) ? found : new HeldResources(level, found);
+    Map<String, Mode> wanted = notYetHeld(resources(cinvocation.getTargetAnnotation()), holds);
+    try (ResourceLocks.Held held = ResourceBudget.get().whileBlocked(() -> ResourceLocks.lock(wanted))) {
+      holds.add(wanted);
+      if (holds != found) {
+        SimpleObjectFactory factory = new SimpleObjectFactory();
+        factory.add(HeldResources.class.getName(), holds);
+        cinvocation.registerObjectFactory(factory);
+      }
+      try {
+        return invocation.proceed();
+      } finally {
+        holds.remove(wanted.keySet());
+      }
+    }
+  }
+
+  private Map<String, Mode> notYetHeld(Map<String, Mode> resources, HeldResources holds) {
+    Map<String, Mode> output = new LinkedHashMap<>();
+    String last = holds.lastKey();
+    for (Entry<String, Mode> resource : resources.entrySet()) {
+      Mode enclosing = holds.modeOf(resource.getKey());
+      if (enclosing == null && last != null && resource.getKey().compareTo(last) < 0) {
+        throw new IllegalStateException("The resource " + resource.getKey() + " sorts before " + last
+                + ", which is held by an enclosing advice. Declare it alongside " + last
+                + " so that both are locked in order.");
+      } else if (enclosing == null) {
+        output.put(resource.getKey(), resource.getValue());
+      } else if (enclosing == Mode.READ && resource.getValue() == Mode.WRITE) {
+        throw new IllegalStateException("The resource " + resource.getKey()
+                + " is read by an enclosing advice, it can not be written by a nested one");
+      }
+    }
+    return output;
+  }
+
+  private Map<String, Mode> resources(Annotation annotation) {
+    ExclusiveResource[] resources;
+    if (annotation instanceof ExclusiveResources) {
+      resources = ((ExclusiveResources) annotation).value();
+    } else if (annotation instanceof ExclusiveResource) {
+      resources = new ExclusiveResource[] { (ExclusiveResource) annotation };
+    } else {
+      throw new IllegalStateException("This MethodInterceptor must be declared by " + ExclusiveResource.class.getName());
+    }
+    Map<String, Mode> output = new LinkedHashMap<>();
+    for (ExclusiveResource resource : resources) {
+      output.merge(resource.key(), resource.mode(), (first, second) -> first == Mode.WRITE ? first : second);
+    }
+    return output;
+  }
+
+}
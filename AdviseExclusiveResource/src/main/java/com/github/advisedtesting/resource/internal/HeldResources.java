@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.resource.internal;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.advisedtesting.core.ObjectFactory;
+import com.github.advisedtesting.resource.ExclusiveResource.Mode;
+
+/**
+ * The resources locked by the {@link ExclusiveResourceAdvice} of one level of a test, its class or the test itself, and
+ * those of the enclosing level. Registered as an object of the level's {@link ObjectFactory}, so nested advice, which
+ * may run on another thread than the one holding the locks, finds what it need not lock again.
+ */
+final class HeldResources {
+
+  private final ObjectFactory level;
+  private final HeldResources enclosing;
+  private final Map<String, Mode> held = new ConcurrentHashMap<>();
+
+  HeldResources(ObjectFactory level, HeldResources enclosing) {
+    this.level = level;
+    this.enclosing = enclosing;
+  }
+
+  boolean isAt(ObjectFactory other) {
+    return level == other;
+  }
+
+  /**
+   * How the resource is held by this level or an enclosing one.
+   * 
+   * @param key of the resource.
+   * @return the mode it is held in, or null if it is not.
+   */
+  Mode modeOf(String key) {
+    Mode mode = held.get(key);
+    if (mode == null && enclosing != null) {
+      return enclosing.modeOf(key);
+    }
+    return mode;
+  }
+
+  /**
+   * The key sorting last among those held by this level or an enclosing one.
+   * 
+   * @return the key, or null if nothing is held.
+   */
+  String lastKey() {
+    String last = enclosing == null ? null : enclosing.lastKey();
+    for (String key : held.keySet()) {
+      if (last == null || key.compareTo(last) > 0) {
+        last = key;
+      }
+    }
+    return last;
+  }
+
+  void add(Map<String, Mode> resources) {
+    held.putAll(resources);
+  }
+
+  void remove(Collection<String> keys) {
+    held.keySet().removeAll(keys);
+  }
+
+}
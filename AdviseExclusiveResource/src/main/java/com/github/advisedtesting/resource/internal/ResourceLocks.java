@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.resource.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.github.advisedtesting.resource.ExclusiveResource.Mode;
+
+/**
+ * <p>
+ * The lock manager shared by every test of the jvm, a {@link ReentrantReadWriteLock} per resource key, created on first
+ * use and kept for the life of the jvm.
+ * </p>
+ * <p>
+ * The keys a test needs are always locked in ascending order, so tests locking several resources can not deadlock each
+ * other. That holds across a test class and its tests too, as nested advice may only lock keys sorting after those its
+ * enclosing advice holds, see {@link ExclusiveResourceAdvice}. Locks are held by the thread that took them. A key already
+ * held by an enclosing advice, possibly on another thread, is not locked again, see {@link HeldResources}.
+ * </p>
+ * 
+ * @author rex
+ */
+public final class ResourceLocks {
+
+  private static final ConcurrentMap<String, ReentrantReadWriteLock> LOCKS = new ConcurrentHashMap<>();
+
+  private ResourceLocks() {
+  }
+
+  /**
+   * Lock the resources, waiting as long as it takes.
+   * 
+   * @param resources keys and the way they are used.
+   * @return the held locks, close to release them, on the same thread.
+   * @throws InterruptedException if interrupted while waiting, no lock is held then.
+   */
+  public static Held lock(Map<String, Mode> resources) throws InterruptedException {
+    Held held = new Held(resources.size());
+    try {
+      for (Entry<String, Mode> resource : new TreeMap<>(resources).entrySet()) {
+        ReentrantReadWriteLock lock = LOCKS.computeIfAbsent(resource.getKey(), key -> new ReentrantReadWriteLock());
+        Lock taken = resource.getValue() == Mode.WRITE ? lock.writeLock() : lock.readLock();
+        taken.lockInterruptibly();
+        held.locks.add(taken);
+      }
+    } catch (InterruptedException | RuntimeException ex) {
+      held.close();
+      throw ex;
+    }
+    return held;
+  }
+
+  /**
+   * Whether the current thread holds the lock of the resource, for reading or writing.
+   * 
+   * @param key of the resource.
+   * @return true if held by this thread.
+   */
+  public static boolean isHeldByCurrentThread(String key) {
+    ReentrantReadWriteLock lock = LOCKS.get(key);
+    return lock != null && (lock.isWriteLockedByCurrentThread() || lock.getReadHoldCount() > 0);
+  }
+
+  /**
+   * The locks taken for a test, released in reverse order.
+   */
+  public static final class Held implements AutoCloseable {
+
+    private final List<Lock> locks;
+
+    private Held(int size) {
+      this.locks = new ArrayList<>(size);
+    }
+
+    @Override
+    public void close() {
+      for (int i = locks.size() - 1; i >= 0; i--) {
+        locks.get(i).unlock();
+      }
+      locks.clear();
+    }
+  }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+
+import com.github.advisedtesting.junit4.Junit4AopClassRunner;
+import com.github.advisedtesting.junit4.ParallelTests;
+import com.github.advisedtesting.resource.ExclusiveResource.Mode;
+import com.github.advisedtesting.resource.internal.ResourceLocks;
+import com.github.advisedtesting.resource.internal.ResourceLocks.Held;
+
+public class TestExclusiveResource {
+
+  @RunWith(Junit4AopClassRunner.class)
+  public static class Locked {
+
+    @Test
+    @ExclusiveResource(key = "port")
+    public void single() {
+      assertThat(ResourceLocks.isHeldByCurrentThread("port")).isTrue();
+    }
+
+    @Test
+    @ExclusiveResource(key = "system.property", mode = Mode.READ)
+    @ExclusiveResource(key = "directory")
+    public void several() {
+      assertThat(ResourceLocks.isHeldByCurrentThread("system.property")).isTrue();
+      assertThat(ResourceLocks.isHeldByCurrentThread("directory")).isTrue();
+    }
+  }
+
+  // the class holds the read lock on its own thread, while the tests run on the scheduler's.
+  @RunWith(Junit4AopClassRunner.class)
+  @ParallelTests(threads = 2)
+  @ExclusiveResource(key = "configuration", mode = Mode.READ)
+  public static class ReadByTheClass {
+
+    @Test
+    @ExclusiveResource(key = "configuration", mode = Mode.READ)
+    @ExclusiveResource(key = "output")
+    public void readsAgain() {
+      assertThat(ResourceLocks.isHeldByCurrentThread("configuration")).isFalse();
+      assertThat(ResourceLocks.isHeldByCurrentThread("output")).isTrue();
+    }
+
+    @Test
+    @ExclusiveResource(key = "configuration")
+    public void writes() {
+    }
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  @ExclusiveResource(key = "b.class")
+  public static class LockedAfterTheClass {
+
+    @Test
+    @ExclusiveResource(key = "c.test")
+    public void sortsAfter() {
+      assertThat(ResourceLocks.isHeldByCurrentThread("c.test")).isTrue();
+    }
+
+    @Test
+    @ExclusiveResource(key = "a.test")
+    public void sortsBefore() {
+    }
+  }
+
+  @Test
+  public void testsLockOnlyAfterTheirClass() {
+    Result result = JUnitCore.runClasses(LockedAfterTheClass.class);
+    assertThat(result.getRunCount()).isEqualTo(2);
+    assertThat(result.getFailureCount()).isEqualTo(1);
+    assertThat(result.getFailures().get(0).getDescription().getMethodName()).isEqualTo("sortsBefore");
+    assertThat(result.getFailures().get(0).getException()).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void heldByTheClassForItsTests() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Result result = executor.submit(() -> JUnitCore.runClasses(ReadByTheClass.class)).get(30, TimeUnit.SECONDS);
+      assertThat(result.getRunCount()).isEqualTo(2);
+      assertThat(result.getFailureCount()).isEqualTo(1);
+      assertThat(result.getFailures().get(0).getDescription().getMethodName()).isEqualTo("writes");
+      assertThat(result.getFailures().get(0).getException()).isInstanceOf(IllegalStateException.class);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void heldWhileTheTestRuns() {
+    Result result = JUnitCore.runClasses(Locked.class);
+    assertThat(result.getFailures()).isEmpty();
+    assertThat(ResourceLocks.isHeldByCurrentThread("port")).isFalse();
+  }
+
+  @Test
+  public void readersShareWritersExclude() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      CountDownLatch bothReading = new CountDownLatch(2);
+      Future<Boolean> firstReader = executor.submit(() -> read(bothReading));
+      Future<Boolean> secondReader = executor.submit(() -> read(bothReading));
+      assertThat(firstReader.get(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(secondReader.get(10, TimeUnit.SECONDS)).isTrue();
+
+      CountDownLatch writing = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      Future<?> writer = executor.submit(() -> {
+        try (Held held = ResourceLocks.lock(resources("shared", Mode.WRITE))) {
+          writing.countDown();
+          release.await();
+        }
+        return null;
+      });
+      writing.await();
+      Future<Boolean> blockedReader = executor.submit(() -> read(new CountDownLatch(0)));
+      Thread.sleep(100);
+      assertThat(blockedReader.isDone()).isFalse();
+      release.countDown();
+      writer.get(10, TimeUnit.SECONDS);
+      assertThat(blockedReader.get(10, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void severalResourcesLockedInOneOrder() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    AtomicInteger inside = new AtomicInteger();
+    try {
+      Future<?> forward = executor.submit(() -> swap(resources("first", Mode.WRITE, "second", Mode.WRITE), inside));
+      Future<?> backward = executor.submit(() -> swap(resources("second", Mode.WRITE, "first", Mode.WRITE), inside));
+      forward.get(30, TimeUnit.SECONDS);
+      backward.get(30, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static boolean read(CountDownLatch others) throws InterruptedException {
+    try (Held held = ResourceLocks.lock(resources("shared", Mode.READ))) {
+      others.countDown();
+      return others.await(10, TimeUnit.SECONDS);
+    }
+  }
+
+  private static Void swap(Map<String, Mode> resources, AtomicInteger inside) throws InterruptedException {
+    for (int i = 0; i < 1000; i++) {
+      try (Held held = ResourceLocks.lock(resources)) {
+        assertThat(inside.incrementAndGet()).isEqualTo(1);
+        inside.decrementAndGet();
+      }
+    }
+    return null;
+  }
+
+  private static Map<String, Mode> resources(Object... keysAndModes) {
+    Map<String, Mode> output = new LinkedHashMap<>();
+    for (int i = 0; i < keysAndModes.length; i += 2) {
+      output.put((String) keysAndModes[i], (Mode) keysAndModes[i + 1]);
+    }
+    return output;
+  }
+
+}
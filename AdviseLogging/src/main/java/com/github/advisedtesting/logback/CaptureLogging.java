@@ -22,12 +22,10 @@
  */
 package com.github.advisedtesting.logback;
 
-import static java.lang.annotation.ElementType.CONSTRUCTOR;
-import static java.lang.annotation.ElementType.FIELD;
-import static java.lang.annotation.ElementType.METHOD;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
 import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 
@@ -35,7 +33,7 @@ import org.aopalliance.intercept.MethodInterceptor;
 
 import com.github.advisedtesting.logback.internal.LoggerAdvice;
 
-@Target({ METHOD, CONSTRUCTOR, FIELD })
+@Target({ ElementType.TYPE, ElementType.METHOD, ElementType.CONSTRUCTOR, ElementType.FIELD })
 @Retention(RUNTIME)
 @Documented
 public @interface CaptureLogging {
@@ -29,6 +29,8 @@ import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 
+import org.slf4j.LoggerFactory;
+
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
@@ -37,6 +39,8 @@ import ch.qos.logback.classic.util.ContextSelectorStaticBinder;
 import ch.qos.logback.core.OutputStreamAppender;
 import ch.qos.logback.core.encoder.Encoder;
 
+import com.github.advisedtesting.core.AdviceNotifier;
+
 /**
  * Temporarily captures Logback output (mostly useful for tests). Based on https://gist.github.com/olim7t/881318.
  */
@@ -54,7 +58,9 @@ public class LogbackCapture {
     if (INSTANCE.get() != null) {
       throw new IllegalStateException("already started");
     }
-    INSTANCE.set(new LogbackCapture());
+    LogbackCapture capture = new LogbackCapture();
+    INSTANCE.set(capture);
+    AdviceNotifier.captureStarted(capture);
   }
 
   /**
@@ -67,9 +73,12 @@ public class LogbackCapture {
     if (instance == null) {
       throw new IllegalStateException("was not running");
     }
-    final String result = instance.stopInstance();
-    INSTANCE.remove();
-    return result;
+    try {
+      return instance.stopInstance();
+    } finally {
+      INSTANCE.remove();
+      AdviceNotifier.captureStopped(instance);
+    }
   }
 
   private LogbackCapture() {
@@ -116,7 +125,8 @@ public class LogbackCapture {
 
   /**
    * Given http://www.slf4j.org/codes.html#substituteLogger we occasionally need to retry getting the logging context on test's
-   * startup
+   * startup. Slf4j is asked for its factory first, as the context selector is only bound once slf4j is initialized, which
+   * nothing else may have done yet.
    * 
    * @return the current {@link LoggerContext}.
    * 
@@ -127,7 +137,10 @@ public class LogbackCapture {
    */
   private static LoggerContext getContext() {
     return new Wait<LoggerContext>()
-            .on(() -> ContextSelectorStaticBinder.getSingleton().getContextSelector().getDefaultLoggerContext())
+            .on(() -> {
+              LoggerFactory.getILoggerFactory();
+              return ContextSelectorStaticBinder.getSingleton().getContextSelector().getDefaultLoggerContext();
+            })
             .trying(10)
             .toComplete();
   }
@@ -51,16 +51,17 @@ public class Wait<T> {
     int retryCount = 0;
     while (output == null && retryCount < retries) {
       try {
-        output = supplier.get(); 
+        try {
+          output = supplier.get(); 
+        } catch (RuntimeException ex) {
+          if (retryCount == retries - 1) {
+            throw ex;
+          }
+        }
         retryCount++;
         if (output == null) {
           Thread.sleep(500);
         }
-      } catch (RuntimeException ex) {
-        if (retryCount == retries - 1) {
-          throw ex;
-        }
-        retryCount++;
       } catch (InterruptedException iex) {
         throw new CompletionException(iex);
       }
@@ -32,7 +32,9 @@ import java.util.stream.Stream;
 
 import org.aopalliance.intercept.MethodInterceptor;
 
-@Target({ElementType.METHOD, ElementType.CONSTRUCTOR, ElementType.FIELD, ElementType.PARAMETER })
+import com.github.advisedtesting.core.AdviceScope;
+
+@Target({ ElementType.TYPE, ElementType.METHOD, ElementType.CONSTRUCTOR, ElementType.FIELD, ElementType.PARAMETER })
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 public @interface RestrictiveClassloader {
@@ -68,11 +70,34 @@ public @interface RestrictiveClassloader {
    * @return true by default.
    */
   boolean transformLinkageErrors() default true;
+
+  /**
+   * <p>
+   * If true every test gets a classloader of its own, so every static of the classes it loads is initialized afresh for
+   * each test, and advice loaded by the classloader is closed when the test ends. That costs loading and transforming
+   * every such class again for each test.
+   * </p>
+   * <p>
+   * The default is false: a classloader is built once for each distinct annotation within a {@link #scope()}, and reused
+   * by every test in that scope declaring it.
+   * </p>
+   * @return true for a new classloader per test.
+   */
+  boolean perTest() default false;
+
+  /**
+   * The scope of the {@link RunInClassLoaderInterceptor} and so of the classloaders it keeps. The default,
+   * {@link AdviceScope#SINGLETON}, builds them once and shares them with every test class until the test context is
+   * closed. {@link AdviceScope#TEST_CLASS} gives each test class its own interceptor, so parallel test classes do not
+   * share it, and discards its classloaders once the class has run, at the cost of transforming every class again.
+   * @return the scope of the interceptor.
+   */
+  AdviceScope scope() default AdviceScope.SINGLETON;
   
   /**
    * {@link #implementedBy()} returns a Class that implements {@link org.aopalliance.intercept.MethodInterceptor}.
    * This field will be accessed via reflection so the name must be exact.  If the class also implements
-   * {@link java.io.Closeable} the {@link java.io.Closeable#close()} method will be called at the close of the global context.
+   * {@link java.io.Closeable} the {@link java.io.Closeable#close()} method will be called at the end of its {@link #scope()}.
    * @return the {@link MethodInterceptor} used to build the context, should never need to be changed.
    */
   Class<? extends MethodInterceptor> implementedBy() default RunInClassLoaderInterceptor.class;
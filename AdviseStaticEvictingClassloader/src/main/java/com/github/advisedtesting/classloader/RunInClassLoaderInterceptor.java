@@ -22,36 +22,48 @@
  */
 package com.github.advisedtesting.classloader;
 
+import java.io.Closeable;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 
+import com.github.advisedtesting.core.AdviceNotifier;
 import com.github.advisedtesting.core.ContextAwareMethodInvocation;
+import com.github.advisedtesting.core.PreparingMethodInterceptor;
+import com.github.advisedtesting.core.internal.SetupBarrier;
+import com.github.advisedtesting.core.internal.TestContext;
 
-public class RunInClassLoaderInterceptor implements MethodInterceptor {
+/**
+ * Runs nested advices and the test in an {@link EvictingClassLoader}. The classloader is looked up when the runner
+ * prepares the test's advices, so that nested advices are prepared against it. Class level advice is not prepared, and
+ * looks its classloader up when invoked. A classloader is built once for each distinct {@link RestrictiveClassloader} in
+ * this advice's {@link RestrictiveClassloader#scope() scope}, unless it asks for one
+ * {@link RestrictiveClassloader#perTest() per test}. Once a classloader is discarded, advice loaded by it is evicted from
+ * the {@link TestContext}, closing it: a per test classloader when its test is done, the others when this advice is
+ * closed at the end of its scope.
+ */
+public class RunInClassLoaderInterceptor implements PreparingMethodInterceptor, Closeable {
 
-  private final Map<RestrictiveClassloader, EvictingClassLoader> classloaderBySupplier 
-      = new ConcurrentHashMap<>();
+  private final TestContext context = new TestContext();
+  private final Map<RestrictiveClassloader, EvictingClassLoader> classloaderBySupplier = new ConcurrentHashMap<>();
 
-  
   @Override
   public Object invoke(MethodInvocation invocation) throws Throwable {
     if (ContextAwareMethodInvocation.class.isAssignableFrom(invocation.getClass())) {
       ContextAwareMethodInvocation cinvocation = ((ContextAwareMethodInvocation) invocation);
       RestrictiveClassloader rc = (RestrictiveClassloader) cinvocation.getTargetAnnotation();
-      Supplier<Stream<String>> packageSupplier = convertToSingleSupplier(rc);
-      EvictingClassLoader targetClassLoader = classloaderBySupplier.computeIfAbsent(rc, targetClass -> {
-        boolean warnOnly = rc.warnOnly() && InDeveloperEnvironment.inDev();
-        EvictingStaticTransformer transformer = new EvictingStaticTransformer(warnOnly);
-        return new EvictingClassLoader(packageSupplier.get().collect(Collectors.toList()),
-                transformer, this.getClass().getClassLoader());
-      });
+      EvictingClassLoader targetClassLoader = (EvictingClassLoader) SetupBarrier.await(cinvocation.getPreparation());
+      if (targetClassLoader == null) {
+        targetClassLoader = classLoaderFor(rc);
+      }
+      ClassLoader previous = Thread.currentThread().getContextClassLoader();
       try {
         Thread.currentThread().setContextClassLoader(targetClassLoader);
         return invocation.proceed();
@@ -68,7 +80,10 @@ public class RunInClassLoaderInterceptor implements MethodInterceptor {
           throw er;
         }
       } finally {
-        Thread.currentThread().setContextClassLoader(this.getClass().getClassLoader());
+        Thread.currentThread().setContextClassLoader(previous);
+        if (rc.perTest()) {
+          discard(targetClassLoader);
+        }
       }
     } else {
       throw new IllegalStateException(
@@ -76,6 +91,62 @@ public class RunInClassLoaderInterceptor implements MethodInterceptor {
     }
   }
 
+  /**
+   * Looks the test's {@link EvictingClassLoader} up, or builds it, ahead of the test thread reaching this advice.
+   */
+  @Override
+  public Object prepare(Annotation annotation, ClassLoader classLoader) {
+    return classLoaderFor((RestrictiveClassloader) annotation);
+  }
+
+  /**
+   * Nested advices may have been resolved against a per test classloader before the test failed, evict them.
+   */
+  @Override
+  public void discard(Annotation annotation, Object prepared) {
+    if (((RestrictiveClassloader) annotation).perTest()) {
+      discard((ClassLoader) prepared);
+    }
+  }
+
+  /**
+   * Discard every classloader built once for its annotation.
+   */
+  @Override
+  public void close() {
+    for (Iterator<EvictingClassLoader> loaders = classloaderBySupplier.values().iterator(); loaders.hasNext();) {
+      EvictingClassLoader loader = loaders.next();
+      loaders.remove();
+      discard(loader);
+    }
+  }
+
+  @Override
+  public boolean preparesClassLoader(Annotation annotation) {
+    return true;
+  }
+
+  private EvictingClassLoader classLoaderFor(RestrictiveClassloader rc) {
+    if (rc.perTest()) {
+      return newClassLoader(rc);
+    }
+    return classloaderBySupplier.computeIfAbsent(rc, this::newClassLoader);
+  }
+
+  private EvictingClassLoader newClassLoader(RestrictiveClassloader rc) {
+    Supplier<Stream<String>> packageSupplier = convertToSingleSupplier(rc);
+    boolean warnOnly = rc.warnOnly() && InDeveloperEnvironment.inDev();
+    EvictingStaticTransformer transformer = new EvictingStaticTransformer(warnOnly);
+    EvictingClassLoader classLoader = new EvictingClassLoader(packageSupplier.get().collect(Collectors.toList()),
+            transformer, this.getClass().getClassLoader());
+    AdviceNotifier.classLoaderCreated(classLoader);
+    return classLoader;
+  }
+
+  private void discard(ClassLoader classLoader) {
+    context.evict(classLoader);
+    AdviceNotifier.classLoaderDiscarded(classLoader);
+  }
 
   private Supplier<Stream<String>> convertToSingleSupplier(RestrictiveClassloader rc) {
     Class<? extends  Supplier<Stream<String>>>[] supplierClasses = rc.delegatingPackagesSuppliers();
@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.testing.classloader;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Closeable;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+
+import com.github.advisedtesting.classloader.EvictingClassLoader;
+import com.github.advisedtesting.classloader.RestrictiveClassloader;
+import com.github.advisedtesting.junit4.Junit4AopClassRunner;
+
+import test.classloader.data.CloseCount;
+import test.classloader.data.SeenClassLoaders;
+
+public class TestClassLoaderEviction {
+
+  @Target({ ElementType.METHOD })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface CountsClose {
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default CountsCloseAdvice.class;
+  }
+
+  public static class CountsCloseAdvice implements MethodInterceptor, Closeable {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      return invocation.proceed();
+    }
+
+    @Override
+    public void close() {
+      CloseCount.CLOSED.incrementAndGet();
+    }
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  public static class Embedded {
+
+    @Test
+    @RestrictiveClassloader(delegatingPackagesSuppliers = TestPackageSupplier.class, perTest = true)
+    @CountsClose
+    public void first() {
+    }
+
+    @Test
+    @RestrictiveClassloader(delegatingPackagesSuppliers = TestPackageSupplier.class, perTest = true)
+    @CountsClose
+    public void second() {
+    }
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  public static class Shared {
+
+    @Test
+    @RestrictiveClassloader(delegatingPackagesSuppliers = TestPackageSupplier.class)
+    public void first() {
+      SeenClassLoaders.LOADERS.add(Thread.currentThread().getContextClassLoader());
+    }
+
+    @Test
+    @RestrictiveClassloader(delegatingPackagesSuppliers = TestPackageSupplier.class)
+    public void second() {
+      SeenClassLoaders.LOADERS.add(Thread.currentThread().getContextClassLoader());
+    }
+  }
+
+  @Test
+  public void adviceLoadedByTheClassLoaderIsClosedAfterEachTest() {
+    CloseCount.CLOSED.set(0);
+    Result result = new JUnitCore().run(Embedded.class);
+    assertThat(result.getFailures()).isEmpty();
+    assertThat(CloseCount.CLOSED.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void classLoaderBuiltOncePerAnnotation() {
+    SeenClassLoaders.LOADERS.clear();
+    Result result = new JUnitCore().run(Shared.class);
+    assertThat(result.getFailures()).isEmpty();
+    assertThat(SeenClassLoaders.LOADERS).hasSize(1);
+    assertThat(SeenClassLoaders.LOADERS.iterator().next()).isInstanceOf(EvictingClassLoader.class);
+  }
+}
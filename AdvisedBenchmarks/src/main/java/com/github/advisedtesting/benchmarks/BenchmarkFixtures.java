@@ -0,0 +1,146 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.benchmarks;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Advice annotations and annotated test shaped methods shared by the benchmarks.
+ */
+public final class BenchmarkFixtures {
+
+  @Target({ ElementType.METHOD, ElementType.PARAMETER })
+  @Retention(RUNTIME)
+  @Repeatable(Fixtures.class)
+  public @interface Fixture {
+    String name() default "__default";
+
+    String instance() default "__default";
+
+    Class<? extends MethodInterceptor> implementedBy() default PassThroughAdvice.class;
+  }
+
+  @Target({ ElementType.METHOD })
+  @Retention(RUNTIME)
+  public @interface Fixtures {
+    Fixture[] value();
+  }
+
+  /**
+   * Not itself an advice, but groups advices, the way a shared composed annotation would.
+   */
+  @Target({ ElementType.METHOD })
+  @Retention(RUNTIME)
+  public @interface FixtureGroup {
+    Fixture[] fixtures();
+
+    Fixture primary() default @Fixture(name = "primary");
+  }
+
+  public static class PassThroughAdvice implements MethodInterceptor {
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      return invocation.proceed();
+    }
+  }
+
+  /**
+   * Methods shaped like advised tests.
+   */
+  public static class Shapes {
+
+    @Fixture(name = "c0")
+    public void single(@Fixture(name = "c0") String value) {
+    }
+
+    @Fixture(name = "outer")
+    @FixtureGroup(fixtures = { @Fixture(name = "g0"), @Fixture(name = "g1"), @Fixture(name = "g2") })
+    @Fixtures({ @Fixture(name = "r0"), @Fixture(name = "r1") })
+    public void nested(@Fixture(name = "outer") String value) {
+    }
+
+    @Fixture(name = "c0")
+    @Fixture(name = "c1")
+    @Fixture(name = "c2")
+    @Fixture(name = "c3")
+    @Fixture(name = "c4")
+    @Fixture(name = "c5")
+    @Fixture(name = "c6")
+    @Fixture(name = "c7")
+    @Fixture(name = "c8")
+    @Fixture(name = "c9")
+    @Fixture(name = "c10")
+    @Fixture(name = "c11")
+    @Fixture(name = "c12")
+    @Fixture(name = "c13")
+    @Fixture(name = "c14")
+    @Fixture(name = "c15")
+    public void manyContexts() {
+    }
+
+    public void eightParameters(@Fixture(name = "c0") String p0, @Fixture(name = "c1") String p1,
+            @Fixture(name = "c2") String p2, @Fixture(name = "c3") String p3, @Fixture(name = "c4") String p4,
+            @Fixture(name = "c5") String p5, @Fixture(name = "c6") Integer p6, @Fixture(name = "c7") Integer p7) {
+    }
+
+    public String echo(String value) {
+      return value;
+    }
+  }
+
+  private BenchmarkFixtures() {
+  }
+
+  public static Method shape(String name) {
+    for (Method method : Shapes.class.getMethods()) {
+      if (method.getName().equals(name)) {
+        return method;
+      }
+    }
+    throw new IllegalArgumentException("No shape " + name);
+  }
+
+  /**
+   * The first contexts of {@link Shapes#manyContexts()}, in order.
+   *
+   * @param count of contexts, at most 16.
+   * @return the context annotations.
+   */
+  public static Annotation[] contexts(int count) {
+    Fixture[] all = shape("manyContexts").getAnnotation(Fixtures.class).value();
+    Annotation[] output = new Annotation[count];
+    System.arraycopy(all, 0, output, 0, count);
+    return output;
+  }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.advisedtesting.core.internal.MethodHandleInvoker;
+import com.github.advisedtesting.core.internal.MethodHandleInvoker.BoundMethod;
+
+/**
+ * Constructing a test instance and invoking a test method through {@link MethodHandleInvoker}, against reflection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MethodHandleInvokerBenchmark {
+
+  private final Object[] arguments = new Object[] { "value" };
+  private MethodHandleInvoker invoker;
+  private BoundMethod bound;
+  private Method method;
+  private Object target;
+
+  /**
+   * Binds the echo method both ways.
+   */
+  @Setup
+  public void setup() throws Throwable {
+    invoker = MethodHandleInvoker.of(BenchmarkFixtures.Shapes.class);
+    method = BenchmarkFixtures.shape("echo");
+    bound = MethodHandleInvoker.bind(method);
+    target = invoker.newInstance();
+  }
+
+  @Benchmark
+  public Object newInstanceHandle() throws Throwable {
+    return invoker.newInstance();
+  }
+
+  @Benchmark
+  @SuppressWarnings("deprecation")
+  public Object newInstanceReflective() throws Exception {
+    return BenchmarkFixtures.Shapes.class.newInstance();
+  }
+
+  @Benchmark
+  public Object invokeHandle() throws Throwable {
+    return bound.invoke(target, arguments);
+  }
+
+  @Benchmark
+  public Object invokeReflective() throws Exception {
+    return method.invoke(target, arguments);
+  }
+
+}
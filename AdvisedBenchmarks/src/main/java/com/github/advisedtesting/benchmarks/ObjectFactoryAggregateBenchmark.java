@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.benchmarks;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.advisedtesting.core.internal.ProviderAwareObjectFactoryAggregate;
+import com.github.advisedtesting.core.internal.SimpleObjectFactory;
+
+/**
+ * Registering contexts with, and resolving test parameters from, a {@link ProviderAwareObjectFactoryAggregate}. Each
+ * context holds one String and one Integer, parameters name their context, those naming an unregistered context fall back
+ * to a search of every context.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObjectFactoryAggregateBenchmark {
+
+  @Param({ "1", "16" })
+  private int contexts;
+
+  @Param({ "single", "eightParameters" })
+  private String shape;
+
+  private Annotation[] contextAnnotations;
+  private SimpleObjectFactory[] factories;
+  private ProviderAwareObjectFactoryAggregate aggregate;
+  private Method method;
+
+  /**
+   * Builds one factory per context, and an aggregate with all of them registered.
+   */
+  @Setup
+  public void setup() {
+    contextAnnotations = BenchmarkFixtures.contexts(contexts);
+    factories = new SimpleObjectFactory[contexts];
+    for (int i = 0; i < contexts; i++) {
+      factories[i] = new SimpleObjectFactory();
+      factories[i].add("string", "value" + i);
+      factories[i].add("integer", i);
+    }
+    aggregate = register();
+    method = BenchmarkFixtures.shape(shape);
+  }
+
+  @Benchmark
+  public ProviderAwareObjectFactoryAggregate register() {
+    ProviderAwareObjectFactoryAggregate output = new ProviderAwareObjectFactoryAggregate();
+    for (int i = 0; i < contexts; i++) {
+      output.register(contextAnnotations[i], factories[i]);
+    }
+    return output;
+  }
+
+  @Benchmark
+  public Object[] getArgumentsFor() {
+    return aggregate.getArgumentsFor(method);
+  }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.benchmarks;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.advisedtesting.core.ObjectFactory;
+import com.github.advisedtesting.core.internal.SimpleObjectFactory;
+
+/**
+ * Type and name lookups on a {@link SimpleObjectFactory} used as a fixture registry, against a linear scan
+ * {@link ObjectFactory} that resolves lookups the way {@link SimpleObjectFactory} did before it was indexed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimpleObjectFactoryBenchmark {
+
+  @Param({ "10", "500" })
+  private int size;
+
+  private SimpleObjectFactory indexed;
+  private LinearScanObjectFactory linear;
+  private String lastName;
+
+  /**
+   * Fills both factories with the same contents: size strings and a single {@link Long}.
+   */
+  @Setup
+  public void setup() {
+    indexed = new SimpleObjectFactory();
+    linear = new LinearScanObjectFactory();
+    for (int i = 0; i < size; i++) {
+      indexed.add("string" + i, "value" + i);
+      linear.add("string" + i, "value" + i);
+    }
+    indexed.add("long", 1L);
+    linear.add("long", 1L);
+    lastName = "string" + (size - 1);
+  }
+
+  @Benchmark
+  public Long indexedByType() {
+    return indexed.getObject(Long.class);
+  }
+
+  @Benchmark
+  public Long linearByType() {
+    return linear.getObject(Long.class);
+  }
+
+  @Benchmark
+  public String indexedByName() {
+    return indexed.getObject(lastName, String.class);
+  }
+
+  @Benchmark
+  public String linearByName() {
+    return linear.getObject(lastName, String.class);
+  }
+
+  @Benchmark
+  public Map<String, CharSequence> indexedAllOfType() {
+    return indexed.getAllObjects(CharSequence.class);
+  }
+
+  @Benchmark
+  public Map<String, CharSequence> linearAllOfType() {
+    return linear.getAllObjects(CharSequence.class);
+  }
+
+  /**
+   * Reference implementation, scans every entry on each lookup.
+   */
+  public static class LinearScanObjectFactory implements ObjectFactory {
+
+    private final Map<String, Object> contents = new LinkedHashMap<>();
+
+    public void add(String name, Object value) {
+      contents.put(name, value);
+    }
+
+    @Override
+    public <T> T getObject(Class<T> type) {
+      @SuppressWarnings("unchecked")
+      Map<String, ? extends T> possibleOutputs = (Map<String, ? extends T>) contents.entrySet().stream()
+              .filter(o -> type.isAssignableFrom(o.getValue().getClass()))
+              .collect(Collectors.toMap(entry -> entry.getKey(), entry -> entry.getValue()));
+      if (possibleOutputs.size() == 1) {
+        return possibleOutputs.values().iterator().next();
+      }
+      if (possibleOutputs.size() > 1) {
+        throw new IllegalStateException("Multiple objects can satisfy that type " + possibleOutputs.keySet());
+      }
+      return null;
+    }
+
+    @Override
+    public <T> T getObject(String name, Class<T> type) {
+      return getAllObjects(type).get(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Map<String, T> getAllObjects(Class<T> type) {
+      Map<String, T> output = new HashMap<>();
+      contents.entrySet().forEach(e -> {
+        if (e.getValue() != null && type.isAssignableFrom(e.getValue().getClass())) {
+          output.put(e.getKey(), (T) e.getValue());
+        }
+      });
+      return output;
+    }
+  }
+
+}
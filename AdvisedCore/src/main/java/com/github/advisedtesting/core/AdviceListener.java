@@ -0,0 +1,193 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core;
+
+import java.lang.annotation.Annotation;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+/**
+ * <p>
+ * Hook into the advised lifecycle, for metrics, reporting or resource tracking, without another advice annotation on
+ * every test. Implementations are discovered with {@link java.util.ServiceLoader}: list the implementing class in
+ * <code>META-INF/services/com.github.advisedtesting.core.AdviceListener</code>. They need a public zero argument
+ * constructor.
+ * </p>
+ * <p>
+ * Listeners are called synchronously, on the thread the event happens on, possibly from several threads at once, so
+ * they should be quick and thread safe. An exception thrown by a listener is logged and otherwise ignored. Tests are
+ * identified by their display name; class level advice by the test class's name.
+ * </p>
+ * 
+ * @author rex
+ */
+public interface AdviceListener {
+
+  /**
+   * How a test ended.
+   */
+  enum Outcome {
+    /**
+     * The test passed.
+     */
+    SUCCESS,
+    /**
+     * The test, or an advice around it, failed.
+     */
+    FAILURE,
+    /**
+     * An assumption, or a {@link ConstraintException}, stopped the test.
+     */
+    SKIPPED
+  }
+
+  /**
+   * A test is about to run its advice chain.
+   * 
+   * @param test display name.
+   * @param startNanos {@link System#nanoTime()} when the test started.
+   */
+  default void testStarted(String test, long startNanos) {
+  }
+
+  /**
+   * A {@link PreparingMethodInterceptor} is about to prepare, on a pool thread, ahead of the test's advice chain.
+   * 
+   * @param test display name.
+   * @param annotation the advice's annotation.
+   * @param advice the advice instance.
+   */
+  default void preparationStarted(String test, Annotation annotation, MethodInterceptor advice) {
+  }
+
+  /**
+   * A preparation reported by {@link #preparationStarted(String, Annotation, MethodInterceptor)} is done, on the same
+   * thread.
+   * 
+   * @param test display name.
+   * @param annotation the advice's annotation.
+   * @param advice the advice instance.
+   * @param failure thrown by the preparation, or null.
+   */
+  default void preparationFinished(String test, Annotation annotation, MethodInterceptor advice, Throwable failure) {
+  }
+
+  /**
+   * An advice is about to be invoked.
+   * 
+   * @param test display name.
+   * @param annotation the advice's annotation.
+   * @param advice the advice instance.
+   */
+  default void adviceEntered(String test, Annotation annotation, MethodInterceptor advice) {
+  }
+
+  /**
+   * An advice, and everything it wraps, has returned.
+   * 
+   * @param test display name.
+   * @param annotation the advice's annotation.
+   * @param advice the advice instance.
+   * @param failure thrown by the advice, or null.
+   */
+  default void adviceExited(String test, Annotation annotation, MethodInterceptor advice, Throwable failure) {
+  }
+
+  /**
+   * An advice registered an {@link ObjectFactory} for the test.
+   * 
+   * @param test display name.
+   * @param annotation the advice's annotation.
+   * @param factory registered.
+   */
+  default void objectFactoryRegistered(String test, Annotation annotation, ObjectFactory factory) {
+  }
+
+  /**
+   * A test has finished.
+   * 
+   * @param test display name.
+   * @param startNanos {@link System#nanoTime()} when the test started, as passed to {@link #testStarted(String, long)}.
+   * @param outcome of the test.
+   * @param failure that failed or skipped the test, or null.
+   */
+  default void testFinished(String test, long startNanos, Outcome outcome, Throwable failure) {
+  }
+
+  /**
+   * The test context built a new advice instance.
+   * 
+   * @param advice built.
+   */
+  default void adviceCreated(MethodInterceptor advice) {
+  }
+
+  /**
+   * An advice built a classloader to run tests with.
+   * 
+   * @param classLoader built.
+   */
+  default void classLoaderCreated(ClassLoader classLoader) {
+  }
+
+  /**
+   * An advice is done with a classloader it built, see {@link #classLoaderCreated(ClassLoader)}.
+   * 
+   * @param classLoader discarded.
+   */
+  default void classLoaderDiscarded(ClassLoader classLoader) {
+  }
+
+  /**
+   * An advice opened a context, a spring application context for instance, to build an {@link ObjectFactory} from.
+   * 
+   * @param context opened.
+   */
+  default void contextOpened(Object context) {
+  }
+
+  /**
+   * A context reported by {@link #contextOpened(Object)} was closed.
+   * 
+   * @param context closed.
+   */
+  default void contextClosed(Object context) {
+  }
+
+  /**
+   * An advice started capturing output, such as logs, into a buffer.
+   * 
+   * @param capture started.
+   */
+  default void captureStarted(Object capture) {
+  }
+
+  /**
+   * A capture reported by {@link #captureStarted(Object)} was stopped and its buffer released.
+   * 
+   * @param capture stopped.
+   */
+  default void captureStopped(Object capture) {
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core;
+
+import com.github.advisedtesting.core.internal.AdviceListeners;
+
+/**
+ * Lets advice report the resources it manages to every {@link AdviceListener}. With no listener installed a report costs
+ * a check of an empty array.
+ * 
+ * @author rex
+ */
+public final class AdviceNotifier {
+
+  private AdviceNotifier() {
+  }
+
+  /**
+   * Report a classloader built to run tests with, call {@link #classLoaderDiscarded(ClassLoader)} once done with it.
+   * 
+   * @param classLoader built.
+   */
+  public static void classLoaderCreated(ClassLoader classLoader) {
+    AdviceListeners.classLoaderCreated(classLoader);
+  }
+
+  /**
+   * Report a classloader reported by {@link #classLoaderCreated(ClassLoader)} is no longer used.
+   * 
+   * @param classLoader discarded.
+   */
+  public static void classLoaderDiscarded(ClassLoader classLoader) {
+    AdviceListeners.classLoaderDiscarded(classLoader);
+  }
+
+  /**
+   * Report a context opened, call {@link #contextClosed(Object)} once it is closed.
+   * 
+   * @param context opened.
+   */
+  public static void contextOpened(Object context) {
+    AdviceListeners.contextOpened(context);
+  }
+
+  /**
+   * Report a context reported by {@link #contextOpened(Object)} was closed.
+   * 
+   * @param context closed.
+   */
+  public static void contextClosed(Object context) {
+    AdviceListeners.contextClosed(context);
+  }
+
+  /**
+   * Report a capture, of logs for instance, started, call {@link #captureStopped(Object)} once it is stopped.
+   * 
+   * @param capture started.
+   */
+  public static void captureStarted(Object capture) {
+    AdviceListeners.captureStarted(capture);
+  }
+
+  /**
+   * Report a capture reported by {@link #captureStarted(Object)} was stopped.
+   * 
+   * @param capture stopped.
+   */
+  public static void captureStopped(Object capture) {
+    AdviceListeners.captureStopped(capture);
+  }
+
+}
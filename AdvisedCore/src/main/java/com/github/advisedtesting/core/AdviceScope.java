@@ -0,0 +1,62 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+/**
+ * <p>
+ * How widely a single {@link MethodInterceptor} instance is shared. An advice annotation declares its scope with a
+ * <code>scope</code> field, returning this type, next to its implementedBy field. Annotations without the field are
+ * {@link #SINGLETON}.
+ * </p>
+ * <p>
+ * Instances of any scope that implement {@link java.io.Closeable} are closed when their scope ends.
+ * </p>
+ * 
+ * @author rex
+ */
+public enum AdviceScope {
+
+  /**
+   * One instance per interceptor class for the whole JVM, closed when the test context is closed.
+   */
+  SINGLETON,
+
+  /**
+   * One instance per interceptor class per thread, so state need not be shared between parallel workers. Closed when the
+   * test context is closed.
+   */
+  THREAD,
+
+  /**
+   * One instance per interceptor class per test class, closed once every test of the class has run.
+   */
+  TEST_CLASS,
+
+  /**
+   * A fresh instance for each test, closed once the test has run.
+   */
+  TEST
+
+}
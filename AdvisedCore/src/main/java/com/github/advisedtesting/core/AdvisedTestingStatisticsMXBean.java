@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core;
+
+/**
+ * <p>
+ * Live statistics of an advised test run, registered with the platform MBean server as {@value #OBJECT_NAME} once the
+ * first test context is created, if the advisedtesting.jmx.enabled system property is true. Counters are totals since
+ * the jvm started; gauges are read when asked for.
+ * </p>
+ * <p>
+ * Latency percentiles are taken from a histogram with buckets an eighth of a power of two wide, so they are within
+ * about 12% of the exact value.
+ * </p>
+ *
+ * @author rex
+ */
+public interface AdvisedTestingStatisticsMXBean {
+
+  String OBJECT_NAME = "com.github.advisedtesting:type=Statistics";
+
+  long getTestsStarted();
+
+  long getTestsFinished();
+
+  long getTestsFailed();
+
+  long getTestsSkipped();
+
+  long getTestsInFlight();
+
+  /**
+   * Tests finished in the last sixty seconds.
+   *
+   * @return finished per minute.
+   */
+  long getTestsFinishedLastMinute();
+
+  double getTestLatencyP50Millis();
+
+  double getTestLatencyP99Millis();
+
+  /**
+   * Singleton advice instances cached by the test context.
+   *
+   * @return count of cached interceptors.
+   */
+  long getCachedInterceptors();
+
+  long getEvictedInterceptors();
+
+  /**
+   * Test classloaders created and not yet discarded.
+   *
+   * @return count of live classloaders.
+   */
+  long getLiveClassLoaders();
+
+  /**
+   * Object factory contexts, such as spring application contexts, opened and not yet closed.
+   *
+   * @return count of open contexts.
+   */
+  long getOpenContexts();
+
+  /**
+   * Output captures, such as log captures, started and not yet stopped; each holds a buffer.
+   *
+   * @return count of capture buffers in use.
+   */
+  long getActiveCaptures();
+
+}
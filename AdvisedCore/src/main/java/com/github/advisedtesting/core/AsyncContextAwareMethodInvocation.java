@@ -0,0 +1,53 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * The invocation passed to an {@link AsyncMethodInterceptor}.
+ * 
+ * @author rex
+ */
+public interface AsyncContextAwareMethodInvocation extends ContextAwareMethodInvocation {
+
+  /**
+   * Proceed into the rest of the advice chain without waiting on this advice's setup. The test body, and any nested
+   * synchronous advice, waits for the setup stage to complete, if setup fails the test fails with setup's exception.
+   * The nested chain runs before this method returns, so the returned stage is already complete, and teardown composed
+   * on it does not overlap the teardown of nested advices.
+   * 
+   * @param setup this advice's setup, which may still be running.
+   * @return a stage that completes once the test body and all nested advices are complete.
+   */
+  CompletionStage<Object> proceedAsync(CompletionStage<?> setup);
+
+  /**
+   * An executor provided by the runner for setup and teardown work.
+   * 
+   * @return the executor to use for advice work.
+   */
+  Executor getExecutor();
+
+}
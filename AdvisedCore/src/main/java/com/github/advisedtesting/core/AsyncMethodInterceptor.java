@@ -0,0 +1,79 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * <p>
+ * A {@link MethodInterceptor} whose setup and teardown need not block the test thread. The runner calls
+ * {@link #invokeAsync(AsyncContextAwareMethodInvocation)} instead of {@link #invoke(MethodInvocation)}, the advice starts
+ * its setup (typically on {@link AsyncContextAwareMethodInvocation#getExecutor()}), and immediately continues into the
+ * rest of the advice chain with {@link AsyncContextAwareMethodInvocation#proceedAsync(CompletionStage)}. Setup of
+ * several such advices then overlaps, while the test body still only runs once every setup is complete.
+ * </p>
+ * <p>
+ * Teardown is composed on the stage returned by proceedAsync, which completes after the test body and every nested advice
+ * have completed, so advices still nest correctly around the test. Only setup overlaps: the runner proceeds through the
+ * nested chain on the test thread and hands back an already completed stage, so teardown composed on it runs on the test
+ * thread, innermost advice first, and the test finishes only once every teardown has.
+ * </p>
+ * 
+ * @author rex
+ */
+public interface AsyncMethodInterceptor extends MethodInterceptor {
+
+  /**
+   * Start this advice's setup, and proceed into the rest of the advice chain.
+   * 
+   * @param invocation the invocation to proceed with.
+   * @return a stage that completes once the test, and this advice's teardown, have completed.
+   */
+  CompletionStage<Object> invokeAsync(AsyncContextAwareMethodInvocation invocation);
+
+  /**
+   * Blocking form, waits on {@link #invokeAsync(AsyncContextAwareMethodInvocation)}.
+   * 
+   * @param invocation must be an {@link AsyncContextAwareMethodInvocation}.
+   * @return the result of the invocation.
+   * @throws Throwable the failure of the invocation, unwrapped from any {@link CompletionException}.
+   */
+  @Override
+  default Object invoke(MethodInvocation invocation) throws Throwable {
+    if (invocation instanceof AsyncContextAwareMethodInvocation) {
+      try {
+        return invokeAsync((AsyncContextAwareMethodInvocation) invocation).toCompletableFuture().join();
+      } catch (CompletionException ex) {
+        throw ex.getCause() != null ? ex.getCause() : ex;
+      }
+    } else {
+      throw new IllegalStateException(
+              "This MethodInterceptor must be passed an instance of " + AsyncContextAwareMethodInvocation.class.getName());
+    }
+  }
+
+}
@@ -23,15 +23,33 @@
 package com.github.advisedtesting.core;
 
 import java.lang.annotation.Annotation;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import org.aopalliance.intercept.MethodInvocation;
 
 public interface ContextAwareMethodInvocation extends MethodInvocation {
 
+  /**
+   * Make the objects of a factory available to the test, and to advices nested inside the current one. May be called
+   * from any thread, factories registered first take priority when resolving test parameters.
+   * 
+   * @param factory to register against the current {@link #getTargetAnnotation()}.
+   */
   void registerObjectFactory(ObjectFactory factory);
 
   ObjectFactory getCurrentContextFactory();
 
   Annotation getTargetAnnotation();
 
+  /**
+   * The value a {@link PreparingMethodInterceptor} prepared for this invocation, which may still be in progress. Once read
+   * the advice owns the prepared value, it is no longer discarded by the runner.
+   * 
+   * @return a stage completing with the prepared value, or with null if nothing was prepared.
+   */
+  default CompletionStage<Object> getPreparation() {
+    return CompletableFuture.completedFuture(null);
+  }
+
 }
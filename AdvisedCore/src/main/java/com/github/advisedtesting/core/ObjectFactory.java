@@ -23,9 +23,16 @@
 package com.github.advisedtesting.core;
 
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
+ * <p>
  * This class is expected to be implemented by Annotation providers.
+ * </p>
+ * <p>
+ * Test parameters typed {@link Supplier} are resolved lazily, the factory is only asked for the supplied object when
+ * the test first calls {@link Supplier#get()}.
+ * </p>
  * 
  * @author rex
  */
@@ -37,4 +44,22 @@ public interface ObjectFactory {
 
   <T> Map<String, T> getAllObjects(Class<T> type);
 
+  /**
+   * Resolve several lookups in one call, equivalent to calling {@link #getObject(Class)} or
+   * {@link #getObject(String, Class)} for each request in turn. Factories whose lookups share expensive work should
+   * override this to do that work once for the whole batch.
+   * 
+   * @param requests the lookups to resolve.
+   * @return one result per request, in the same order, null where the lookup found nothing.
+   */
+  default Object[] getObjects(ObjectRequest... requests) {
+    Object[] output = new Object[requests.length];
+    for (int i = 0; i < requests.length; i++) {
+      ObjectRequest request = requests[i];
+      output[i] = request.getName() == null ? getObject(request.getType())
+              : getObject(request.getName(), request.getType());
+    }
+    return output;
+  }
+
 }
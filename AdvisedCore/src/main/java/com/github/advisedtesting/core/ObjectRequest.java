@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core;
+
+import java.util.Objects;
+
+/**
+ * A single lookup in a batch passed to {@link ObjectFactory#getObjects(ObjectRequest...)}, by type, or by name and type.
+ * 
+ * @author rex
+ */
+public final class ObjectRequest {
+
+  private final String name;
+  private final Class<?> type;
+
+  private ObjectRequest(String name, Class<?> type) {
+    this.name = name;
+    this.type = Objects.requireNonNull(type, "type");
+  }
+
+  public static ObjectRequest of(Class<?> type) {
+    return new ObjectRequest(null, type);
+  }
+
+  public static ObjectRequest of(String name, Class<?> type) {
+    return new ObjectRequest(name, type);
+  }
+
+  /**
+   * The requested name.
+   * 
+   * @return the name of the object, or null if the lookup is by type only.
+   */
+  public String getName() {
+    return name;
+  }
+
+  public Class<?> getType() {
+    return type;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * type.hashCode() + Objects.hashCode(name);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof ObjectRequest)) {
+      return false;
+    }
+    ObjectRequest other = (ObjectRequest) obj;
+    return type == other.type && Objects.equals(name, other.name);
+  }
+
+  @Override
+  public String toString() {
+    return name == null ? type.getName() : name + ":" + type.getName();
+  }
+
+}
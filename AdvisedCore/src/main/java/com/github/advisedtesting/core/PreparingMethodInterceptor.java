@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core;
+
+import java.lang.annotation.Annotation;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+/**
+ * <p>
+ * A {@link MethodInterceptor} with expensive setup that does not depend on the advices around it, building an IoC
+ * context for instance. Before a test's advice chain is invoked the runner calls {@link #prepare(Annotation, ClassLoader)}
+ * for every such advice, concurrently on a bounded pool, so the test waits for the slowest preparation rather than the sum
+ * of all of them.
+ * </p>
+ * <p>
+ * Only advice nested solely in other preparing advice is prepared ahead. An advice that does not prepare, a lock for
+ * instance, may guard what it wraps, so advice nested in it is not prepared, and reads a null preparation.
+ * </p>
+ * <p>
+ * The prepared value is handed back to the advice through {@link ContextAwareMethodInvocation#getPreparation()} when the
+ * chain reaches it. Preparation is opt in, advices that do not implement this interface run exactly as before.
+ * </p>
+ * 
+ * @author rex
+ */
+public interface PreparingMethodInterceptor extends MethodInterceptor {
+
+  /**
+   * Do this advice's independent work, called from a pool thread, not the test's thread.
+   * 
+   * @param annotation the advice annotation being prepared.
+   * @param classLoader the context classloader the advice is expected to run with.
+   * @return the prepared state, made available by {@link ContextAwareMethodInvocation#getPreparation()}.
+   * @throws Throwable if preparation fails, the failure is seen by the advice when it reads the preparation.
+   */
+  Object prepare(Annotation annotation, ClassLoader classLoader) throws Throwable;
+
+  /**
+   * Whether this advice runs nested advices with a classloader it builds itself. If so {@link #prepare(Annotation,
+   * ClassLoader)} must return that classloader, and nested advices are resolved and prepared against it once it is
+   * built, rather than against the input classloader.
+   * 
+   * @param annotation the advice annotation being prepared.
+   * @return true if the prepared value is the classloader nested advices run with, false by default.
+   */
+  default boolean preparesClassLoader(Annotation annotation) {
+    return false;
+  }
+
+  /**
+   * Release a prepared value that the advice never read, for instance because an outer advice failed.
+   * 
+   * @param annotation the advice annotation that was prepared.
+   * @param prepared the value returned by {@link #prepare(Annotation, ClassLoader)}.
+   */
+  default void discard(Annotation annotation, Object prepared) {
+    // nothing to release by default.
+  }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * The processors and heap a test needs while it runs. Runners only start a test once its cost fits within what is left
+ * of the jvm's budget, so tests run concurrently without oversubscribing the cpu or running out of memory.
+ * </p>
+ * <p>
+ * Declared on a test method, or on the test class for all its methods. It may also be declared on an advice annotation
+ * type, an expensive context for instance; a test without a cost of its own then costs the sum of its advice. Advice
+ * declared on a test class is charged once, for as long as the class runs, rather than to each of its tests.
+ * A test declaring nothing costs one processor.
+ * </p>
+ * 
+ * @author rex
+ */
+@Target({ TYPE, METHOD })
+@Retention(RUNTIME)
+@Documented
+public @interface ResourceCost {
+
+  /**
+   * Processors kept busy by the test.
+   * 
+   * @return the processor count, 1 by default.
+   */
+  int cpu() default 1;
+
+  /**
+   * Heap used by the test, in megabytes.
+   * 
+   * @return heap in megabytes, 0 by default.
+   */
+  long memoryMb() default 0;
+
+}
@@ -23,24 +23,97 @@
 package com.github.advisedtesting.core.internal;
 
 import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Member;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import org.aopalliance.intercept.MethodInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class AdviceAnnotationEvaluator {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(AdviceAnnotationEvaluator.class);
+
+  /**
+   * Whether an implementedBy class is a {@link MethodInterceptor} with a zero argument constructor, computed once per class.
+   */
+  private static final ClassValue<Boolean> CONSTRUCTIBLE_INTERCEPTOR = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      try {
+        return MethodInterceptor.class.isAssignableFrom(type) && type.getConstructor() != null;
+      } catch (NoSuchMethodException | SecurityException ex) {
+        return false;
+      }
+    }
+  };
+
+  /**
+   * Advice chains of annotated elements, held against the class owning the element so that they are released with it.
+   */
+  private static final ClassValue<Map<AnnotatedElement, List<Annotation>>> CHAINS_BY_OWNER =
+      new ClassValue<Map<AnnotatedElement, List<Annotation>>>() {
+        @Override
+        protected Map<AnnotatedElement, List<Annotation>> computeValue(Class<?> type) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
   private static boolean hasAdviceClass(final Annotation annotation) {
-    Class<?> value = getValueIfPresent(annotation, "implementedBy", Class.class);
-    try {
-      return value != null 
-              && MethodInterceptor.class.isAssignableFrom(value)
-              && value.getConstructor() != null;
-    } catch (NoSuchMethodException | SecurityException ex) {
-      return false;
+    Class<?> value = AnnotationAttributes.of(annotation).getImplementedBy(annotation);
+    return value != null && CONSTRUCTIBLE_INTERCEPTOR.get(value);
+  }
+
+  /**
+   * The advice chain of an annotated element, as computed by {@link #inspect(Annotation...)} against the element's
+   * annotations, with equal advice annotations merged by {@link #merge(Object, List)}. The chain is computed once per
+   * element and cached.
+   * @param element a test method or class.
+   * @return an unmodifiable List of Advice annotations meant for tests.
+   */
+  public static List<Annotation> adviceChain(AnnotatedElement element) {
+    Class<?> owner = element instanceof Class ? (Class<?>) element
+            : element instanceof Member ? ((Member) element).getDeclaringClass() : null;
+    if (owner == null) {
+      return Collections.unmodifiableList(merge(element, inspect(element.getAnnotations())));
     }
+    return CHAINS_BY_OWNER.get(owner).computeIfAbsent(element,
+        e -> Collections.unmodifiableList(merge(e, inspect(e.getAnnotations()))));
+  }
+
+  /**
+   * Merge advice annotations that are equal, same type and attribute values, into a single execution at the position of
+   * the first, outermost, occurrence. An advice reached twice, say directly and through a container annotation, would
+   * otherwise build its context or classloader twice. Each merge is reported at info level.
+   * @param source what the chain was read from, for the report.
+   * @param chain advice annotations as returned by {@link #inspect(Annotation...)}.
+   * @return the chain without repeats, the input list if there were none.
+   */
+  public static List<Annotation> merge(Object source, List<Annotation> chain) {
+    if (chain.size() < 2) {
+      return chain;
+    }
+    Map<Annotation, Integer> occurrences = new LinkedHashMap<>();
+    for (Annotation annotation : chain) {
+      occurrences.merge(annotation, 1, Integer::sum);
+    }
+    if (occurrences.size() == chain.size()) {
+      return chain;
+    }
+    if (LOGGER.isInfoEnabled()) {
+      LOGGER.info("Merged equivalent advice on " + source + ": " + occurrences.entrySet().stream()
+              .filter(entry -> entry.getValue() > 1)
+              .map(entry -> entry.getKey() + " x" + entry.getValue())
+              .collect(Collectors.joining(", ")));
+    }
+    return new ArrayList<>(occurrences.keySet());
   }
 
   /**
@@ -52,29 +125,15 @@ public class AdviceAnnotationEvaluator {
   public static List<Annotation> inspect(Annotation... annotations) {
     List<Annotation> output = new ArrayList<>();
     for (Annotation annotation : annotations) {
+      if (annotation == null) {
+        continue;
+      }
       if (hasAdviceClass(annotation)) {
         output.add(annotation);
       } else {
-        //get all fields on the annotation.
-        for (Method method : annotation.annotationType().getMethods()) {
-          method.setAccessible(true);
-          //does this method return a single annotation
-          if (Annotation.class.isAssignableFrom(method.getReturnType())) {
-            try {
-              output.addAll(inspect((Annotation) method.invoke(annotation, (Object[]) null)));
-            } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
-              // Should not be reachable
-            }
-          }
-          //does this method return an array of annotations
-          if (method.getReturnType().getComponentType() != null
-                  && Annotation.class.isAssignableFrom(method.getReturnType().getComponentType())) {
-            try {
-              output.addAll(inspect((Annotation[]) method.invoke(annotation, (Object[]) null)));
-            } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
-              // Should not be reachable
-            }
-          }
+        //get all annotations held by fields on the annotation.
+        for (Annotation nested : AnnotationAttributes.of(annotation).getNestedAnnotations(annotation)) {
+          output.addAll(inspect(nested));
         }
       }
     }
@@ -82,7 +141,7 @@ public class AdviceAnnotationEvaluator {
   }
 
   public static String getInstanceIfPresent(Annotation annotation) {
-    String value = getValueIfPresent(annotation, "instance", String.class);
+    String value = annotation == null ? null : AnnotationAttributes.of(annotation).getInstance(annotation);
     if (!"__default".equals(value)) {
       return value;
     } else {
@@ -91,7 +150,7 @@ public class AdviceAnnotationEvaluator {
   }
 
   public static String getNameIfPresent(Annotation annotation) {
-    String value = getValueIfPresent(annotation, "name", String.class);
+    String value = annotation == null ? null : AnnotationAttributes.of(annotation).getName(annotation);
     if (!"__default".equals(value)) {
       return value;
     } else {
@@ -108,23 +167,11 @@ public class AdviceAnnotationEvaluator {
    * @param output and a type of this Class
    * @return the field's value on the annotation if found.
    */
-  @SuppressWarnings("unchecked")
   public static <T> T getValueIfPresent(Annotation annotation, String name, Class<T> output) {
     if (annotation == null) {
       return null;
     }
-    for (Method method : annotation.annotationType().getMethods()) {
-      String methodName = method.getName();
-      if (name.equals(methodName) && output.isAssignableFrom(method.getReturnType())) {
-        try {
-          method.setAccessible(true);
-          return (T) method.invoke(annotation, (Object[]) null);
-        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
-          // moving right along.
-        }
-      }
-    }
-    return null;
+    return AnnotationAttributes.of(annotation).getValue(annotation, name, output);
   }
 
 }
@@ -0,0 +1,183 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * <p>
+ * Emits JDK Flight Recorder events for the advice chain: each advice, advice preparation, the test and it's body,
+ * interceptor instantiation and object factory lookups. Start a recording with the jvm option
+ * <code>-XX:StartFlightRecording</code>, the events are in the "Advised Testing" category.
+ * </p>
+ * <p>
+ * On a jvm without the jdk.jfr module, or with the {@value #DISABLED_PROPERTY} system property set to true, every span is
+ * a shared no op. The jdk.jfr binding is only built on JDK 11 and later, so it is absent from a build made on JDK 8.
+ * </p>
+ *
+ * @author rex
+ */
+public final class AdviceEvents {
+
+  public static final String DISABLED_PROPERTY = "advisedtesting.jfr.disabled";
+
+  private static final String BINDING_CLASS = "com.github.advisedtesting.core.internal.JfrAdviceEvents";
+
+  private static final Binding BINDING = binding();
+
+  static final Span NO_SPAN = () -> {
+  };
+
+  static final LookupSpan NO_LOOKUP_SPAN = found -> {
+  };
+
+  /**
+   * A timed section, ended exactly once.
+   */
+  public interface Span {
+    void end();
+  }
+
+  /**
+   * A timed object factory lookup, ended with the object found.
+   */
+  public interface LookupSpan {
+    void end(Object found);
+  }
+
+  /**
+   * The recorder the spans are started on, implemented by JfrAdviceEvents.
+   */
+  interface Binding {
+
+    Span advice(Class<?> annotationType, Class<?> adviceType, String test);
+
+    Span preparation(Class<?> annotationType, Class<?> adviceType);
+
+    Span test(String test);
+
+    Span testBody(String test);
+
+    Span interceptorInstantiation(Class<?> interceptorType);
+
+    LookupSpan objectFactoryLookup(Class<?> type);
+
+    LookupSpan objectFactoryBatchLookup(Class<?> factoryType, int requests);
+  }
+
+  private AdviceEvents() {
+  }
+
+  public static boolean isAvailable() {
+    return BINDING != null;
+  }
+
+  /**
+   * Span an advice, and everything nested inside it.
+   *
+   * @param annotation the advice's annotation.
+   * @param advice the advice instance, may be null.
+   * @param test the test's display name.
+   * @return the started span.
+   */
+  public static Span advice(Annotation annotation, Object advice, String test) {
+    return BINDING != null ? BINDING.advice(annotation.annotationType(), advice == null ? null : advice.getClass(), test)
+            : NO_SPAN;
+  }
+
+  /**
+   * Span the preparation of an advice.
+   *
+   * @param annotation the advice's annotation.
+   * @param advice the advice instance.
+   * @return the started span.
+   */
+  public static Span preparation(Annotation annotation, Object advice) {
+    return BINDING != null ? BINDING.preparation(annotation.annotationType(), advice.getClass()) : NO_SPAN;
+  }
+
+  /**
+   * Span a whole test, advices included.
+   *
+   * @param test the test's display name.
+   * @return the started span.
+   */
+  public static Span test(String test) {
+    return BINDING != null ? BINDING.test(test) : NO_SPAN;
+  }
+
+  /**
+   * Span a test's body, its befores, afters and rules included.
+   *
+   * @param test the test's display name.
+   * @return the started span.
+   */
+  public static Span testBody(String test) {
+    return BINDING != null ? BINDING.testBody(test) : NO_SPAN;
+  }
+
+  /**
+   * Span the construction of an interceptor.
+   *
+   * @param interceptorType the class being constructed.
+   * @return the started span.
+   */
+  public static Span interceptorInstantiation(Class<?> interceptorType) {
+    return BINDING != null ? BINDING.interceptorInstantiation(interceptorType) : NO_SPAN;
+  }
+
+  /**
+   * Span the lookup of a test parameter.
+   *
+   * @param type the requested type.
+   * @return the started span.
+   */
+  public static LookupSpan objectFactoryLookup(Class<?> type) {
+    return BINDING != null ? BINDING.objectFactoryLookup(type) : NO_LOOKUP_SPAN;
+  }
+
+  /**
+   * Span a batch of lookups made of a single object factory.
+   *
+   * @param factoryType the class of the factory.
+   * @param requests the number of lookups in the batch.
+   * @return the started span, to be ended with the array of objects found.
+   */
+  public static LookupSpan objectFactoryBatchLookup(Class<?> factoryType, int requests) {
+    return BINDING != null ? BINDING.objectFactoryBatchLookup(factoryType, requests) : NO_LOOKUP_SPAN;
+  }
+
+  private static Binding binding() {
+    if (Boolean.getBoolean(DISABLED_PROPERTY)) {
+      return null;
+    }
+    try {
+      Class.forName("jdk.jfr.Event", false, AdviceEvents.class.getClassLoader());
+      return (Binding) Class.forName(BINDING_CLASS, true, AdviceEvents.class.getClassLoader())
+          .getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError ex) {
+      return null;
+    }
+  }
+
+}
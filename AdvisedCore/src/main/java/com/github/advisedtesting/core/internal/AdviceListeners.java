@@ -0,0 +1,229 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.advisedtesting.core.AdviceListener;
+import com.github.advisedtesting.core.AdviceListener.Outcome;
+import com.github.advisedtesting.core.ObjectFactory;
+
+/**
+ * <p>
+ * Dispatches lifecycle events to the {@link AdviceListener}s found by {@link ServiceLoader} when this class is
+ * initialized. The listeners are held in an array built once, dispatch iterates it and allocates nothing, so with no
+ * listener installed an event costs a check of the array's length.
+ * </p>
+ * <p>
+ * {@link RunnerStatistics} is the first listener when its {@value RunnerStatistics#ENABLED_PROPERTY} system property is
+ * true. A {@link TraceEventListener} is added when it's {@value TraceEventListener#FILE_PROPERTY} system property is set.
+ * </p>
+ *
+ * @author rex
+ */
+public final class AdviceListeners {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AdviceListeners.class);
+
+  private static final AdviceListener[] LISTENERS = load();
+
+  private AdviceListeners() {
+  }
+
+  public static boolean isEmpty() {
+    return LISTENERS.length == 0;
+  }
+
+  public static void testStarted(String test, long startNanos) {
+    for (AdviceListener listener : LISTENERS) {
+      try {
+        listener.testStarted(test, startNanos);
+      } catch (RuntimeException ex) {
+        failed(listener, ex);
+      }
+    }
+  }
+
+  public static void preparationStarted(String test, Annotation annotation, MethodInterceptor advice) {
+    for (AdviceListener listener : LISTENERS) {
+      try {
+        listener.preparationStarted(test, annotation, advice);
+      } catch (RuntimeException ex) {
+        failed(listener, ex);
+      }
+    }
+  }
+
+  public static void preparationFinished(String test, Annotation annotation, MethodInterceptor advice,
+          Throwable failure) {
+    for (AdviceListener listener : LISTENERS) {
+      try {
+        listener.preparationFinished(test, annotation, advice, failure);
+      } catch (RuntimeException ex) {
+        failed(listener, ex);
+      }
+    }
+  }
+
+  public static void adviceEntered(String test, Annotation annotation, MethodInterceptor advice) {
+    for (AdviceListener listener : LISTENERS) {
+      try {
+        listener.adviceEntered(test, annotation, advice);
+      } catch (RuntimeException ex) {
+        failed(listener, ex);
+      }
+    }
+  }
+
+  public static void adviceExited(String test, Annotation annotation, MethodInterceptor advice, Throwable failure) {
+    for (AdviceListener listener : LISTENERS) {
+      try {
+        listener.adviceExited(test, annotation, advice, failure);
+      } catch (RuntimeException ex) {
+        failed(listener, ex);
+      }
+    }
+  }
+
+  public static void objectFactoryRegistered(String test, Annotation annotation, ObjectFactory factory) {
+    for (AdviceListener listener : LISTENERS) {
+      try {
+        listener.objectFactoryRegistered(test, annotation, factory);
+      } catch (RuntimeException ex) {
+        failed(listener, ex);
+      }
+    }
+  }
+
+  public static void testFinished(String test, long startNanos, Outcome outcome, Throwable failure) {
+    for (AdviceListener listener : LISTENERS) {
+      try {
+        listener.testFinished(test, startNanos, outcome, failure);
+      } catch (RuntimeException ex) {
+        failed(listener, ex);
+      }
+    }
+  }
+
+  public static void adviceCreated(MethodInterceptor advice) {
+    for (AdviceListener listener : LISTENERS) {
+      try {
+        listener.adviceCreated(advice);
+      } catch (RuntimeException ex) {
+        failed(listener, ex);
+      }
+    }
+  }
+
+  public static void classLoaderCreated(ClassLoader classLoader) {
+    for (AdviceListener listener : LISTENERS) {
+      try {
+        listener.classLoaderCreated(classLoader);
+      } catch (RuntimeException ex) {
+        failed(listener, ex);
+      }
+    }
+  }
+
+  public static void classLoaderDiscarded(ClassLoader classLoader) {
+    for (AdviceListener listener : LISTENERS) {
+      try {
+        listener.classLoaderDiscarded(classLoader);
+      } catch (RuntimeException ex) {
+        failed(listener, ex);
+      }
+    }
+  }
+
+  public static void contextOpened(Object context) {
+    for (AdviceListener listener : LISTENERS) {
+      try {
+        listener.contextOpened(context);
+      } catch (RuntimeException ex) {
+        failed(listener, ex);
+      }
+    }
+  }
+
+  public static void contextClosed(Object context) {
+    for (AdviceListener listener : LISTENERS) {
+      try {
+        listener.contextClosed(context);
+      } catch (RuntimeException ex) {
+        failed(listener, ex);
+      }
+    }
+  }
+
+  public static void captureStarted(Object capture) {
+    for (AdviceListener listener : LISTENERS) {
+      try {
+        listener.captureStarted(capture);
+      } catch (RuntimeException ex) {
+        failed(listener, ex);
+      }
+    }
+  }
+
+  public static void captureStopped(Object capture) {
+    for (AdviceListener listener : LISTENERS) {
+      try {
+        listener.captureStopped(capture);
+      } catch (RuntimeException ex) {
+        failed(listener, ex);
+      }
+    }
+  }
+
+  private static void failed(AdviceListener listener, RuntimeException ex) {
+    LOGGER.warn("AdviceListener " + listener.getClass().getName() + " failed", ex);
+  }
+
+  private static AdviceListener[] load() {
+    List<AdviceListener> found = new ArrayList<>();
+    if (RunnerStatistics.isEnabled()) {
+      found.add(RunnerStatistics.get());
+    }
+    try {
+      for (AdviceListener listener : ServiceLoader.load(AdviceListener.class, AdviceListener.class.getClassLoader())) {
+        found.add(listener);
+      }
+    } catch (ServiceConfigurationError ex) {
+      LOGGER.error("Could not load the AdviceListeners", ex);
+    }
+    TraceEventListener trace = TraceEventListener.fromSystemProperty();
+    if (trace != null) {
+      found.add(trace);
+    }
+    return found.toArray(new AdviceListener[found.size()]);
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * The bounded pool used by runners for advice preparation and asynchronous advice setup.
+ * </p>
+ * <p>
+ * The parallelism defaults to the number of available processors, and can be set with the
+ * {@value #PARALLELISM_PROPERTY} system property. Worker threads are daemons, so the pool never holds the jvm open.
+ * </p>
+ * 
+ * @author rex
+ */
+public final class AdvicePool {
+
+  public static final String PARALLELISM_PROPERTY = "advisedtesting.advice.parallelism";
+
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+  private static final ForkJoinWorkerThreadFactory THREAD_FACTORY = pool -> {
+    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+    thread.setName("advised-testing-advice-" + THREAD_COUNT.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  };
+
+  private static final ForkJoinPool POOL = new ForkJoinPool(parallelism(), THREAD_FACTORY, null, true);
+
+  private AdvicePool() {
+  }
+
+  public static ForkJoinPool get() {
+    return POOL;
+  }
+
+  private static int parallelism() {
+    int processors = Runtime.getRuntime().availableProcessors();
+    int configured = SystemProperties.intProperty(PARALLELISM_PROPERTY, processors);
+    return configured > 0 ? configured : processors;
+  }
+
+}
@@ -0,0 +1,244 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.advisedtesting.core.AdviceScope;
+
+/**
+ * <p>
+ * The attributes of a single annotation type, resolved once to pre-bound {@link MethodHandle}s.
+ * </p>
+ * <p>
+ * Instances are held in a {@link ClassValue} keyed by the annotation type, so they are released along with the
+ * annotation type's classloader. All reads are done through {@link #of(Annotation)} or {@link #of(Class)}, and are
+ * safe to make from any thread.
+ * </p>
+ *
+ * @author rex
+ */
+public final class AnnotationAttributes {
+
+  public static final String IMPLEMENTED_BY = "implementedBy";
+  public static final String NAME = "name";
+  public static final String INSTANCE = "instance";
+  public static final String SCOPE = "scope";
+
+  private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Annotation.class);
+
+  private static final ClassValue<AnnotationAttributes> ATTRIBUTES_BY_TYPE = new ClassValue<AnnotationAttributes>() {
+    @Override
+    protected AnnotationAttributes computeValue(Class<?> type) {
+      return new AnnotationAttributes(type);
+    }
+  };
+
+  private final Map<String, Attribute> attributes;
+  private final Attribute implementedBy;
+  private final Attribute name;
+  private final Attribute instance;
+  private final Attribute scope;
+  private final List<Attribute> nestedAnnotations;
+  private final List<Attribute> nestedAnnotationArrays;
+
+  private AnnotationAttributes(Class<?> annotationType) {
+    Map<String, Attribute> found = new LinkedHashMap<>();
+    List<Attribute> singles = new ArrayList<>();
+    List<Attribute> arrays = new ArrayList<>();
+    for (Method method : annotationType.getMethods()) {
+      if (method.getParameterCount() != 0) {
+        continue;
+      }
+      Attribute attribute = new Attribute(method);
+      if (attribute.handle == null) {
+        continue;
+      }
+      found.putIfAbsent(method.getName(), attribute);
+      //does this method return a single annotation
+      if (Annotation.class.isAssignableFrom(method.getReturnType())) {
+        singles.add(attribute);
+      }
+      //does this method return an array of annotations
+      if (method.getReturnType().getComponentType() != null
+              && Annotation.class.isAssignableFrom(method.getReturnType().getComponentType())) {
+        arrays.add(attribute);
+      }
+    }
+    this.attributes = Collections.unmodifiableMap(found);
+    this.implementedBy = typed(found.get(IMPLEMENTED_BY), Class.class);
+    this.name = typed(found.get(NAME), String.class);
+    this.instance = typed(found.get(INSTANCE), String.class);
+    this.scope = typed(found.get(SCOPE), Enum.class);
+    this.nestedAnnotations = Collections.unmodifiableList(singles);
+    this.nestedAnnotationArrays = Collections.unmodifiableList(arrays);
+  }
+
+  public static AnnotationAttributes of(Class<? extends Annotation> annotationType) {
+    return ATTRIBUTES_BY_TYPE.get(annotationType);
+  }
+
+  public static AnnotationAttributes of(Annotation annotation) {
+    return ATTRIBUTES_BY_TYPE.get(annotation.annotationType());
+  }
+
+  /**
+   * Value of the implementedBy field, if the annotation type declares one returning a {@link Class}.
+   *
+   * @param annotation to read.
+   * @return the class referenced by implementedBy or null.
+   */
+  public Class<?> getImplementedBy(Annotation annotation) {
+    return (Class<?>) read(implementedBy, annotation);
+  }
+
+  /**
+   * Raw value of the name field, the "__default" marker is not interpreted.
+   *
+   * @param annotation to read.
+   * @return the name field's value, or null if there is no such String field.
+   */
+  public String getName(Annotation annotation) {
+    return (String) read(name, annotation);
+  }
+
+  /**
+   * Raw value of the instance field, the "__default" marker is not interpreted.
+   *
+   * @param annotation to read.
+   * @return the instance field's value, or null if there is no such String field.
+   */
+  public String getInstance(Annotation annotation) {
+    return (String) read(instance, annotation);
+  }
+
+  /**
+   * Value of the scope field, matched by constant name so that an annotation loaded by another classloader still
+   * resolves.
+   *
+   * @param annotation to read.
+   * @return the declared scope, or {@link AdviceScope#SINGLETON} if there is no usable scope field.
+   */
+  public AdviceScope getScope(Annotation annotation) {
+    Enum<?> value = (Enum<?>) read(scope, annotation);
+    if (value == null) {
+      return AdviceScope.SINGLETON;
+    }
+    if (value instanceof AdviceScope) {
+      return (AdviceScope) value;
+    }
+    try {
+      return AdviceScope.valueOf(value.name());
+    } catch (IllegalArgumentException ex) {
+      return AdviceScope.SINGLETON;
+    }
+  }
+
+  /**
+   * Finds the value of a field on an annotation.
+   *
+   * @param <T> the type of the field.
+   * @param annotation to inspect
+   * @param fieldName for a field with this name
+   * @param output and a type of this Class
+   * @return the field's value on the annotation if found.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T getValue(Annotation annotation, String fieldName, Class<T> output) {
+    Attribute attribute = attributes.get(fieldName);
+    if (attribute == null || !output.isAssignableFrom(attribute.returnType)) {
+      return null;
+    }
+    return (T) read(attribute, annotation);
+  }
+
+  /**
+   * All annotations directly held by the fields of the input annotation, in field order, singles before arrays.
+   *
+   * @param annotation to inspect.
+   * @return the nested annotations, empty if there are none.
+   */
+  public List<Annotation> getNestedAnnotations(Annotation annotation) {
+    if (nestedAnnotations.isEmpty() && nestedAnnotationArrays.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<Annotation> output = new ArrayList<>();
+    for (Attribute attribute : nestedAnnotations) {
+      Annotation nested = (Annotation) read(attribute, annotation);
+      if (nested != null) {
+        output.add(nested);
+      }
+    }
+    for (Attribute attribute : nestedAnnotationArrays) {
+      Annotation[] nested = (Annotation[]) read(attribute, annotation);
+      if (nested != null) {
+        Collections.addAll(output, nested);
+      }
+    }
+    return output;
+  }
+
+  private static Attribute typed(Attribute attribute, Class<?> type) {
+    return attribute != null && type.isAssignableFrom(attribute.returnType) ? attribute : null;
+  }
+
+  private static Object read(Attribute attribute, Annotation annotation) {
+    if (attribute == null || annotation == null) {
+      return null;
+    }
+    try {
+      return (Object) attribute.handle.invokeExact(annotation);
+    } catch (Throwable th) {
+      // same as a failed reflective read, moving right along.
+      return null;
+    }
+  }
+
+  private static final class Attribute {
+
+    private final Class<?> returnType;
+    private final MethodHandle handle;
+
+    private Attribute(Method method) {
+      this.returnType = method.getReturnType();
+      MethodHandle found;
+      try {
+        method.setAccessible(true);
+        found = MethodHandles.lookup().unreflect(method).asType(ACCESSOR_TYPE);
+      } catch (IllegalAccessException | RuntimeException ex) {
+        found = null;
+      }
+      this.handle = found;
+    }
+  }
+
+}
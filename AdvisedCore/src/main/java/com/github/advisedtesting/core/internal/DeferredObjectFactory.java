@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+import com.github.advisedtesting.core.ObjectFactory;
+import com.github.advisedtesting.core.ObjectRequest;
+
+/**
+ * An {@link ObjectFactory} whose delegate is still being built. Registering one keeps a context's position (and so it's
+ * priority) in the registration order, while the context itself is built asynchronously. Lookups wait for the delegate.
+ * 
+ * @author rex
+ */
+public class DeferredObjectFactory implements ObjectFactory {
+
+  private final CompletionStage<? extends ObjectFactory> delegate;
+
+  public DeferredObjectFactory(CompletionStage<? extends ObjectFactory> delegate) {
+    this.delegate = delegate;
+  }
+
+  private ObjectFactory delegate() {
+    return delegate.toCompletableFuture().join();
+  }
+
+  @Override
+  public <T> T getObject(Class<T> type) {
+    return delegate().getObject(type);
+  }
+
+  @Override
+  public <T> T getObject(String name, Class<T> type) {
+    return delegate().getObject(name, type);
+  }
+
+  @Override
+  public <T> Map<String, T> getAllObjects(Class<T> type) {
+    return delegate().getAllObjects(type);
+  }
+
+  @Override
+  public Object[] getObjects(ObjectRequest... requests) {
+    return delegate().getObjects(requests);
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.github.advisedtesting.core.ObjectFactory;
+import com.github.advisedtesting.core.ObjectRequest;
+
+/**
+ * An {@link ObjectFactory} whose delegate is only built on the first lookup, so a context no test reads is never built.
+ * The delegate is built at most once, by whichever thread looks up first.
+ * 
+ * @author rex
+ */
+public class LazyObjectFactory implements ObjectFactory, Closeable {
+
+  private final Supplier<? extends ObjectFactory> builder;
+  private volatile ObjectFactory delegate;
+
+  public LazyObjectFactory(Supplier<? extends ObjectFactory> builder) {
+    this.builder = builder;
+  }
+
+  public boolean isBuilt() {
+    return delegate != null;
+  }
+
+  private ObjectFactory delegate() {
+    ObjectFactory current = delegate;
+    if (current == null) {
+      synchronized (this) {
+        current = delegate;
+        if (current == null) {
+          current = builder.get();
+          delegate = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  @Override
+  public <T> T getObject(Class<T> type) {
+    return delegate().getObject(type);
+  }
+
+  @Override
+  public <T> T getObject(String name, Class<T> type) {
+    return delegate().getObject(name, type);
+  }
+
+  @Override
+  public <T> Map<String, T> getAllObjects(Class<T> type) {
+    return delegate().getAllObjects(type);
+  }
+
+  @Override
+  public Object[] getObjects(ObjectRequest... requests) {
+    return delegate().getObjects(requests);
+  }
+
+  /**
+   * Close the delegate if it was built and is {@link Closeable}, closing never builds the delegate.
+   */
+  @Override
+  public void close() throws IOException {
+    ObjectFactory current;
+    synchronized (this) {
+      current = delegate;
+    }
+    if (current instanceof Closeable) {
+      ((Closeable) current).close();
+    }
+  }
+
+}
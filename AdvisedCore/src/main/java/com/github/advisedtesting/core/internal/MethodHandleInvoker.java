@@ -0,0 +1,222 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Constructs instances of a test class, and invokes its methods, through {@link MethodHandle}s resolved once per class
+ * rather than through reflection on every execution.
+ * </p>
+ * <p>
+ * Instances are held in a {@link ClassValue} keyed by the loaded class, so a test class loaded by several classloaders
+ * gets an invoker per classloader, and each is released along with its classloader.
+ * </p>
+ *
+ * @author rex
+ */
+public final class MethodHandleInvoker {
+
+  private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+  private static final Map<String, Class<?>> PRIMITIVES_BY_NAME = new HashMap<>();
+
+  static {
+    for (Class<?> primitive : new Class<?>[] { boolean.class, byte.class, char.class, short.class, int.class, long.class,
+            float.class, double.class }) {
+      PRIMITIVES_BY_NAME.put(primitive.getName(), primitive);
+    }
+  }
+
+  private static final ClassValue<MethodHandleInvoker> INVOKERS_BY_CLASS = new ClassValue<MethodHandleInvoker>() {
+    @Override
+    protected MethodHandleInvoker computeValue(Class<?> type) {
+      return new MethodHandleInvoker(type);
+    }
+  };
+
+  private final Class<?> type;
+  private final Map<MethodKey, BoundMethod> methods = new ConcurrentHashMap<>();
+  private volatile MethodHandle constructor;
+
+  private MethodHandleInvoker(Class<?> type) {
+    this.type = type;
+  }
+
+  public static MethodHandleInvoker of(Class<?> type) {
+    return INVOKERS_BY_CLASS.get(type);
+  }
+
+  /**
+   * The bound form of a method, cached by the method's declaring class. The method is bound as given, its parameter types
+   * are not resolved again.
+   *
+   * @param method to bind.
+   * @return the cached bound method.
+   */
+  public static BoundMethod bind(Method method) {
+    List<String> parameterTypeNames = new ArrayList<>(method.getParameterCount());
+    for (Class<?> parameterType : method.getParameterTypes()) {
+      parameterTypeNames.add(parameterType.getName());
+    }
+    MethodHandleInvoker invoker = of(method.getDeclaringClass());
+    return invoker.methods.computeIfAbsent(new MethodKey(method.getName(), parameterTypeNames),
+            key -> invoker.bind(key, method));
+  }
+
+  /**
+   * Create an instance with the public zero argument constructor.
+   *
+   * @return the new instance.
+   * @throws Throwable anything thrown by the constructor, not wrapped.
+   */
+  public Object newInstance() throws Throwable {
+    MethodHandle handle = constructor;
+    if (handle == null) {
+      Constructor<?> found = type.getConstructor();
+      found.setAccessible(true);
+      handle = MethodHandles.lookup().unreflectConstructor(found).asType(CONSTRUCTOR_TYPE);
+      constructor = handle;
+    }
+    return (Object) handle.invokeExact();
+  }
+
+  /**
+   * Find a public method by name and the names of it's parameter types, parameter types are resolved by the classloader
+   * of this invoker's class.
+   *
+   * @param name of the method.
+   * @param parameterTypeNames the fully qualified names of the method's parameter types, as {@link Class#getName()}
+   *          returns them, so {@code int} for a primitive int parameter.
+   * @return the cached bound method.
+   * @throws IllegalArgumentException if no such method exists.
+   */
+  public BoundMethod method(String name, List<String> parameterTypeNames) {
+    return methods.computeIfAbsent(new MethodKey(name, parameterTypeNames), this::bind);
+  }
+
+  private BoundMethod bind(MethodKey key) {
+    try {
+      Class<?>[] parameterTypes = new Class<?>[key.parameterTypeNames.size()];
+      for (int index = 0; index < parameterTypes.length; index++) {
+        parameterTypes[index] = typeNamed(key.parameterTypeNames.get(index));
+      }
+      return bind(key, type.getMethod(key.name, parameterTypes));
+    } catch (ClassNotFoundException | NoSuchMethodException ex) {
+      throw new IllegalArgumentException("Could not bind " + key.name + key.parameterTypeNames + " on " + type.getName(),
+              ex);
+    }
+  }
+
+  private BoundMethod bind(MethodKey key, Method method) {
+    try {
+      return new BoundMethod(method);
+    } catch (IllegalAccessException ex) {
+      throw new IllegalArgumentException("Could not bind " + key.name + key.parameterTypeNames + " on " + type.getName(),
+              ex);
+    }
+  }
+
+  private Class<?> typeNamed(String name) throws ClassNotFoundException {
+    Class<?> primitive = PRIMITIVES_BY_NAME.get(name);
+    return primitive != null ? primitive : Class.forName(name, false, type.getClassLoader());
+  }
+
+  /**
+   * A method with a handle taking the target and an array of arguments, static methods ignore the target.
+   */
+  public static final class BoundMethod {
+
+    private final Method method;
+    private final MethodHandle handle;
+
+    private BoundMethod(Method method) throws IllegalAccessException {
+      this.method = method;
+      method.setAccessible(true);
+      MethodHandle found = MethodHandles.lookup().unreflect(method);
+      if (Modifier.isStatic(method.getModifiers())) {
+        found = MethodHandles.dropArguments(found, 0, Object.class);
+      }
+      int parameterCount = method.getParameterCount();
+      this.handle = found.asType(MethodType.genericMethodType(parameterCount + 1))
+              .asSpreader(Object[].class, parameterCount);
+    }
+
+    public Method getMethod() {
+      return method;
+    }
+
+    /**
+     * Invoke the method.
+     *
+     * @param target the instance to invoke on, ignored for static methods.
+     * @param arguments one per parameter.
+     * @return the method's return value, null for void methods.
+     * @throws Throwable anything thrown by the method, not wrapped.
+     */
+    public Object invoke(Object target, Object[] arguments) throws Throwable {
+      return (Object) handle.invokeExact(target, arguments);
+    }
+  }
+
+  private static final class MethodKey {
+
+    private final String name;
+    private final List<String> parameterTypeNames;
+
+    private MethodKey(String name, List<String> parameterTypeNames) {
+      this.name = name;
+      this.parameterTypeNames = Collections.unmodifiableList(new ArrayList<>(parameterTypeNames));
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * name.hashCode() + parameterTypeNames.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof MethodKey)) {
+        return false;
+      }
+      MethodKey other = (MethodKey) obj;
+      return name.equals(other.name) && parameterTypeNames.equals(other.parameterTypeNames);
+    }
+  }
+
+}
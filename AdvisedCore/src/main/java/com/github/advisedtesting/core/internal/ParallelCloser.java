@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Closes a set of named {@link Closeable}s concurrently, each on its own daemon thread, waiting at most a per closeable
+ * timeout, and never longer than a global timeout overall. Closeables still running when their time is up are
+ * interrupted and abandoned, so a hanging close can not hold the jvm open.
+ * 
+ * @author rex
+ */
+final class ParallelCloser {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParallelCloser.class);
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+  private final List<String> names = new ArrayList<>();
+  private final List<Closeable> closeables = new ArrayList<>();
+
+  void add(String name, Closeable closeable) {
+    names.add(name);
+    closeables.add(closeable);
+  }
+
+  /**
+   * Close everything added.
+   * 
+   * @param timeoutMillis the most time any one closeable is given.
+   * @param globalTimeoutMillis the most time all closeables are given.
+   * @return the names of the closeables that did not finish in time, empty if all did.
+   */
+  List<String> close(long timeoutMillis, long globalTimeoutMillis) {
+    if (closeables.isEmpty()) {
+      return Collections.emptyList();
+    }
+    ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "advised-testing-close-" + THREAD_COUNT.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    List<String> overruns = new ArrayList<>();
+    try {
+      long start = System.nanoTime();
+      List<Future<?>> futures = new ArrayList<>(closeables.size());
+      for (Closeable closeable : closeables) {
+        futures.add(executor.submit(() -> {
+          closeable.close();
+          return null;
+        }));
+      }
+      long deadline = start + TimeUnit.MILLISECONDS.toNanos(Math.min(timeoutMillis, globalTimeoutMillis));
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+          futures.get(i).cancel(true);
+          overruns.add(names.get(i));
+        } catch (ExecutionException ex) {
+          LOGGER.error("Error closing " + names.get(i), ex.getCause());
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          futures.subList(i, futures.size()).forEach(future -> future.cancel(true));
+          overruns.addAll(names.subList(i, names.size()));
+          break;
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    if (!overruns.isEmpty()) {
+      LOGGER.warn("Closing exceeded the time budget of " + Math.min(timeoutMillis, globalTimeoutMillis) + "ms, abandoned "
+              + overruns);
+    }
+    return overruns;
+  }
+
+}
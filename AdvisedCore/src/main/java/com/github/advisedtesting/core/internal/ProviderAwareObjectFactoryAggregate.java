@@ -24,40 +24,96 @@ package com.github.advisedtesting.core.internal;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import com.github.advisedtesting.core.ObjectFactory;
+import com.github.advisedtesting.core.ObjectRequest;
 
+/**
+ * <p>
+ * Aggregates the {@link ObjectFactory} instances registered by advices for a single test execution.
+ * </p>
+ * <p>
+ * Registration may happen from any thread. Registrations are held in an immutable snapshot that is replaced on each
+ * {@link #register(Annotation, ObjectFactory)}, so lookups never lock, and always see registrations in the order they
+ * were made.
+ * </p>
+ * <p>
+ * An aggregate may have a parent, holding the contexts of class level advice. The parent's contexts are looked up after
+ * the aggregate's own, so method level advice is layered on top of class level advice.
+ * </p>
+ */
 public class ProviderAwareObjectFactoryAggregate implements ObjectFactory {
 
+  /**
+   * Argument resolution plans of test methods, held against the method's declaring class so they are released with it.
+   */
+  private static final ClassValue<Map<Method, ParameterResolver[]>> PLANS_BY_DECLARING_CLASS =
+      new ClassValue<Map<Method, ParameterResolver[]>>() {
+        @Override
+        protected Map<Method, ParameterResolver[]> computeValue(Class<?> type) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  private final ProviderAwareObjectFactoryAggregate parent;
+
   // registrar capability, used to build the default object factory....
-  private Map<Annotation, ObjectFactory> contexts = new LinkedHashMap<>();
+  private volatile Registrations registrations;
+
+  public ProviderAwareObjectFactoryAggregate() {
+    this(null);
+  }
+
+  /**
+   * An aggregate falling back to the parent's contexts, as registered when this aggregate was built or last registered
+   * to.
+   * @param parent the enclosing aggregate, may be null.
+   */
+  public ProviderAwareObjectFactoryAggregate(ProviderAwareObjectFactoryAggregate parent) {
+    this.parent = parent;
+    this.registrations = new Registrations(Collections.emptyMap(), inherited());
+  }
 
+  /**
+   * Register an {@link ObjectFactory} for the context described by the annotation. If several contexts match a lookup
+   * the first registered one wins.  Safe to call from any thread.
+   * @param annotation describing the context, it's type and name attribute are indexed.
+   * @param objectFactory the factory holding the context's objects.
+   */
   public void register(Annotation annotation, ObjectFactory objectFactory) {
-    contexts.put(annotation, objectFactory);
+    synchronized (this) {
+      Map<Annotation, ObjectFactory> contexts = new LinkedHashMap<>(registrations.contexts);
+      contexts.put(annotation, objectFactory);
+      registrations = new Registrations(contexts, inherited());
+    }
+  }
+
+  private Registrations inherited() {
+    return parent == null ? null : parent.registrations;
   }
 
   @Override
   public <T> T getObject(Class<T> type) {
-    for (Entry<Annotation, ObjectFactory> entry : contexts.entrySet()) {
-      T found = entry.getValue().getObject(type);
-      if (found != null) {
-        return found;
-      }
-    }
-    return null;
+    return registrations.getObject(null, type);
   }
 
   @Override
   public <T> T getObject(String name, Class<T> type) {
-    return contexts.entrySet().stream().map((entry) -> entry.getValue().getObject(name, type)).filter(o -> o != null).findFirst()
-            .orElseGet(() -> null);
+    return registrations.getObject(name, type);
   }
 
   public <T> T getObject(Annotation annotation, Class<T> type) {
@@ -72,53 +128,400 @@ public class ProviderAwareObjectFactoryAggregate implements ObjectFactory {
     return invokeOnFoundObjectFactory(annotation, o -> o.getAllObjects(type));
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public <T> Map<String, T> getAllObjects(Class<T> type) {
-    for (Entry<Annotation, ObjectFactory> context : contexts.entrySet()) {
-      Map<String, T> matches = context.getValue().getAllObjects(type);
-      if (matches != null && matches.size() > 0) {
-        return matches;
+    return registrations.getAllObjects(type);
+  }
+
+  /**
+   * Resolve the arguments of a test method from the registered contexts. Each parameter is resolved from the first
+   * context its annotations name, falling back to any context holding a single matching object. Parameters typed
+   * {@link Supplier} are passed a supplier the contexts hold, if any, otherwise they are resolved lazily, against the
+   * supplier's type argument, the first time the supplier is called.
+   * The parameter types and annotations of a method are read once, into a plan cached against the method's declaring
+   * class. The first lookup of every parameter is batched per context, with
+   * {@link ObjectFactory#getObjects(ObjectRequest...)}.
+   * @param method the test method.
+   * @return one argument per parameter, null where nothing matched.
+   */
+  public Object[] getArgumentsFor(Method method) {
+    ParameterResolver[] plan = PLANS_BY_DECLARING_CLASS.get(method.getDeclaringClass())
+            .computeIfAbsent(method, ProviderAwareObjectFactoryAggregate::plan);
+    Registrations current = registrations;
+    Object[] parameters = new Object[plan.length];
+    int[] nextContext = new int[plan.length];
+    Map<ObjectFactory, Batch> batches = new IdentityHashMap<>();
+    for (int i = 0; i < plan.length; i++) {
+      if (plan[i].lazy) {
+        parameters[i] = plan[i].resolve(current);
+        continue;
+      }
+      int context = plan[i].firstRegisteredContext(current, 0);
+      if (context < 0) {
+        nextContext[i] = plan[i].contexts.length;
+      } else {
+        batches.computeIfAbsent(current.contextIndex.get(plan[i].contexts[context]), Batch::new)
+                .add(i, plan[i].requests[context]);
+        nextContext[i] = context + 1;
       }
     }
-    return Collections.unmodifiableMap(Collections.EMPTY_MAP);
+    for (Batch batch : batches.values()) {
+      batch.resolveInto(parameters);
+    }
+    for (int i = 0; i < plan.length; i++) {
+      if (!plan[i].lazy && parameters[i] == null) {
+        parameters[i] = plan[i].lookup(current, nextContext[i]);
+      }
+    }
+    return parameters;
   }
 
-  public Object[] getArgumentsFor(Method method) {
+  private static ParameterResolver[] plan(Method method) {
     Class<?>[] parameterTypes = method.getParameterTypes();
+    Type[] genericParameterTypes = method.getGenericParameterTypes();
     Annotation[][] annotations = method.getParameterAnnotations();
-    Object[] parameters = new Object[parameterTypes.length];
+    ParameterResolver[] plan = new ParameterResolver[parameterTypes.length];
     for (int i = 0; i < parameterTypes.length; i++) {
-      parameters[i] = getArgumentFor(parameterTypes[i], annotations[i]);
+      if (parameterTypes[i] == Supplier.class) {
+        plan[i] = new ParameterResolver(suppliedType(genericParameterTypes[i]), annotations[i], true);
+      } else {
+        plan[i] = new ParameterResolver(parameterTypes[i], annotations[i], false);
+      }
     }
-    return parameters;
+    return plan;
   }
 
-  private Object getArgumentFor(Class<?> argumentType, Annotation[] annotations) {
-    Object output = null;
-    Iterator<Annotation> iter = Arrays.asList(annotations).iterator();
-    while (iter.hasNext() && output == null) {
-      Annotation annotation = iter.next();
-      String requestedInstanceName = AdviceAnnotationEvaluator.getInstanceIfPresent(annotation);
-      if (requestedInstanceName != null && !"".equals(requestedInstanceName)) {
-        output = invokeOnFoundObjectFactory(annotation, o -> o.getObject(requestedInstanceName, argumentType));
-      } else {
-        output = invokeOnFoundObjectFactory(annotation, o -> o.getObject(argumentType));
+  private static Class<?> suppliedType(Type supplierType) {
+    if (supplierType instanceof ParameterizedType) {
+      Type supplied = ((ParameterizedType) supplierType).getActualTypeArguments()[0];
+      if (supplied instanceof ParameterizedType) {
+        supplied = ((ParameterizedType) supplied).getRawType();
+      }
+      if (supplied instanceof Class) {
+        return (Class<?>) supplied;
       }
-    }   
-    return output != null ? output : this.getObject(argumentType);
+    }
+    return Object.class;
   }
 
   private <T, X> X invokeOnFoundObjectFactory(Annotation annotation, Function<ObjectFactory, X> function) {
-    String desiredName = AdviceAnnotationEvaluator.getNameIfPresent(annotation);
-    for (Entry<Annotation, ObjectFactory> context : contexts.entrySet()) {
-      if (context.getKey().annotationType().isAssignableFrom(annotation.annotationType())
-              && (desiredName == null || desiredName.equals(AdviceAnnotationEvaluator.getNameIfPresent(context.getKey())))) {
-        return function.apply(context.getValue());
+    if (annotation == null) {
+      return null;
+    }
+    ObjectFactory found = registrations.contextIndex.get(
+            new ContextKey(annotation.annotationType(), AdviceAnnotationEvaluator.getNameIfPresent(annotation)));
+    return found == null ? null : function.apply(found);
+  }
+
+  /**
+   * Immutable snapshot of the registrations, with the first registered context for an annotation type (any name),
+   * or for an annotation type and name, indexed. Inherited contexts follow the aggregate's own.
+   * <p>
+   * Lookups across every context remember, by requested type and name, which context answered, so later lookups skip
+   * the contexts before it. That context is still asked every time, so prototype objects stay prototypes. A register
+   * replaces the snapshot, which drops what was remembered. Misses are not remembered, and neither is an answer from
+   * behind a {@link DeferredObjectFactory} or {@link LazyObjectFactory}, whose contexts may be filled in after they
+   * are registered.
+   * </p>
+   */
+  private static final class Registrations {
+
+    private final Map<Annotation, ObjectFactory> contexts;
+    private final ObjectFactory[] factories;
+    // answers from contexts up to this one may be remembered.
+    private final int lastSettled;
+    private final Map<ContextKey, ObjectFactory> contextIndex = new HashMap<>();
+    private final Map<Resolution, Integer> answeredBy = new ConcurrentHashMap<>();
+
+    private Registrations(Map<Annotation, ObjectFactory> contexts, Registrations inherited) {
+      this.contexts = contexts;
+      List<ObjectFactory> all = new ArrayList<>(contexts.values());
+      for (Entry<Annotation, ObjectFactory> context : contexts.entrySet()) {
+        Class<? extends Annotation> type = context.getKey().annotationType();
+        String name = AdviceAnnotationEvaluator.getNameIfPresent(context.getKey());
+        contextIndex.putIfAbsent(new ContextKey(type, null), context.getValue());
+        if (name != null) {
+          contextIndex.putIfAbsent(new ContextKey(type, name), context.getValue());
+        }
+      }
+      if (inherited != null) {
+        Collections.addAll(all, inherited.factories);
+        inherited.contextIndex.forEach(contextIndex::putIfAbsent);
+      }
+      this.factories = all.toArray(new ObjectFactory[all.size()]);
+      int settled = 0;
+      while (settled < factories.length && !(factories[settled] instanceof DeferredObjectFactory)
+              && !(factories[settled] instanceof LazyObjectFactory)) {
+        settled++;
+      }
+      this.lastSettled = settled;
+    }
+
+    private <T> T getObject(String name, Class<T> type) {
+      Resolution key = new Resolution(type, name, false);
+      Integer answered = answeredBy.get(key);
+      if (answered != null) {
+        T found = getObject(factories[answered], name, type);
+        if (found != null) {
+          return found;
+        }
+      }
+      for (int i = 0; i < factories.length; i++) {
+        T found = getObject(factories[i], name, type);
+        if (found != null) {
+          remember(key, i);
+          return found;
+        }
+      }
+      return null;
+    }
+
+    private static <T> T getObject(ObjectFactory factory, String name, Class<T> type) {
+      return name == null ? factory.getObject(type) : factory.getObject(name, type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Map<String, T> getAllObjects(Class<T> type) {
+      Resolution key = new Resolution(type, null, true);
+      Integer answered = answeredBy.get(key);
+      if (answered != null) {
+        Map<String, T> matches = factories[answered].getAllObjects(type);
+        if (matches != null && matches.size() > 0) {
+          return matches;
+        }
+      }
+      for (int i = 0; i < factories.length; i++) {
+        Map<String, T> matches = factories[i].getAllObjects(type);
+        if (matches != null && matches.size() > 0) {
+          remember(key, i);
+          return matches;
+        }
+      }
+      return Collections.unmodifiableMap(Collections.EMPTY_MAP);
+    }
+
+    private void remember(Resolution key, int factory) {
+      if (factory <= lastSettled) {
+        answeredBy.putIfAbsent(key, factory);
+      }
+    }
+  }
+
+  /**
+   * Resolves one parameter, with the context and instance name requested by each of it's annotations bound up front.
+   */
+  private static final class ParameterResolver {
+
+    private final Class<?> type;
+    private final boolean lazy;
+    private final ContextKey[] contexts;
+    private final ObjectRequest[] requests;
+
+    private ParameterResolver(Class<?> type, Annotation[] annotations, boolean lazy) {
+      this.type = type;
+      this.lazy = lazy;
+      this.contexts = new ContextKey[annotations.length];
+      this.requests = new ObjectRequest[annotations.length];
+      for (int i = 0; i < annotations.length; i++) {
+        contexts[i] = new ContextKey(annotations[i].annotationType(),
+                AdviceAnnotationEvaluator.getNameIfPresent(annotations[i]));
+        String instance = AdviceAnnotationEvaluator.getInstanceIfPresent(annotations[i]);
+        requests[i] = instance == null || instance.isEmpty() ? ObjectRequest.of(type) : ObjectRequest.of(instance, type);
+      }
+    }
+
+    private int firstRegisteredContext(Registrations registrations, int from) {
+      for (int i = from; i < contexts.length; i++) {
+        if (registrations.contextIndex.containsKey(contexts[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private Object resolve(Registrations registrations) {
+      if (!lazy) {
+        return lookup(registrations, 0);
+      }
+      Object registered = registeredSupplier(registrations);
+      return registered != null ? registered : new MemoizingSupplier(() -> lookup(registrations, 0));
+    }
+
+    /**
+     * A {@link Supplier} held by a context named by the parameter's annotations, or by any context holding a single one.
+     * Lazy contexts not built yet are skipped, as asking them would build them.
+     */
+    private Object registeredSupplier(Registrations registrations) {
+      for (int i = 0; i < contexts.length; i++) {
+        ObjectFactory found = registrations.contextIndex.get(contexts[i]);
+        if (isBuilt(found)) {
+          Object supplier = single(found.getAllObjects(Supplier.class), requests[i].getName());
+          if (supplier != null) {
+            return supplier;
+          }
+        }
+      }
+      for (ObjectFactory factory : registrations.factories) {
+        if (isBuilt(factory)) {
+          Object supplier = single(factory.getAllObjects(Supplier.class), null);
+          if (supplier != null) {
+            return supplier;
+          }
+        }
+      }
+      return null;
+    }
+
+    private static boolean isBuilt(ObjectFactory factory) {
+      return factory != null && !(factory instanceof LazyObjectFactory && !((LazyObjectFactory) factory).isBuilt());
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Object single(Map<String, Supplier> suppliers, String name) {
+      if (suppliers == null) {
+        return null;
+      }
+      if (name != null) {
+        return suppliers.get(name);
+      }
+      return suppliers.size() == 1 ? suppliers.values().iterator().next() : null;
+    }
+
+    /**
+     * Look the parameter up in the contexts named by it's annotations, from the given one on, then in every context.
+     */
+    private Object lookup(Registrations registrations, int fromContext) {
+      AdviceEvents.LookupSpan span = AdviceEvents.objectFactoryLookup(type);
+      Object output = null;
+      try {
+        for (int i = fromContext; i < contexts.length && output == null; i++) {
+          ObjectFactory found = registrations.contextIndex.get(contexts[i]);
+          if (found != null) {
+            output = requests[i].getName() != null ? found.getObject(requests[i].getName(), type) : found.getObject(type);
+          }
+        }
+        if (output == null) {
+          output = registrations.getObject(null, type);
+        }
+        return output;
+      } finally {
+        span.end(output);
+      }
+    }
+  }
+
+  /**
+   * The first lookups of several parameters, made of the same context.
+   */
+  private static final class Batch {
+
+    private final ObjectFactory factory;
+    private final List<ObjectRequest> requests = new ArrayList<>();
+    private final List<Integer> parameterIndexes = new ArrayList<>();
+
+    private Batch(ObjectFactory factory) {
+      this.factory = factory;
+    }
+
+    private void add(int parameterIndex, ObjectRequest request) {
+      parameterIndexes.add(parameterIndex);
+      requests.add(request);
+    }
+
+    private void resolveInto(Object[] parameters) {
+      AdviceEvents.LookupSpan span = AdviceEvents.objectFactoryBatchLookup(factory.getClass(), requests.size());
+      Object[] found = null;
+      try {
+        found = factory.getObjects(requests.toArray(new ObjectRequest[requests.size()]));
+        for (int i = 0; i < found.length && i < parameterIndexes.size(); i++) {
+          parameters[parameterIndexes.get(i)] = found[i];
+        }
+      } finally {
+        span.end(found);
       }
     }
-    return null;
   }
 
+  /**
+   * The supplier passed for a lazy parameter, resolves at most once.
+   */
+  private static final class MemoizingSupplier implements Supplier<Object> {
+
+    private final Supplier<Object> lookup;
+    private volatile boolean resolved;
+    private Object value;
+
+    private MemoizingSupplier(Supplier<Object> lookup) {
+      this.lookup = lookup;
+    }
+
+    @Override
+    public Object get() {
+      if (!resolved) {
+        synchronized (this) {
+          if (!resolved) {
+            value = lookup.get();
+            resolved = true;
+          }
+        }
+      }
+      return value;
+    }
+  }
+
+  private static final class ContextKey {
+
+    private final Class<? extends Annotation> type;
+    private final String name;
+
+    private ContextKey(Class<? extends Annotation> type, String name) {
+      this.type = type;
+      this.name = name;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * type.hashCode() + Objects.hashCode(name);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof ContextKey)) {
+        return false;
+      }
+      ContextKey other = (ContextKey) obj;
+      return type == other.type && Objects.equals(name, other.name);
+    }
+  }
+
+  /**
+   * A lookup across every context: by type, by name and type, or of all objects of a type.
+   */
+  private static final class Resolution {
+
+    private final Class<?> type;
+    private final String name;
+    private final boolean all;
+
+    private Resolution(Class<?> type, String name, boolean all) {
+      this.type = type;
+      this.name = name;
+      this.all = all;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * type.hashCode() + Objects.hashCode(name)) + (all ? 1 : 0);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Resolution)) {
+        return false;
+      }
+      Resolution other = (Resolution) obj;
+      return type == other.type && all == other.all && Objects.equals(name, other.name);
+    }
+  }
 
 }
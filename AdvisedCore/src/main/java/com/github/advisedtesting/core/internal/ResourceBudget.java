@@ -0,0 +1,364 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.advisedtesting.core.ResourceCost;
+
+/**
+ * <p>
+ * Admits tests to run only while the sum of their {@link ResourceCost}s fits the jvm's budget, by default the available
+ * processors and the maximum heap. Both can be set with the {@value #CPU_PROPERTY} and {@value #MEMORY_PROPERTY} system
+ * properties. A test costing more than the whole budget runs once nothing else does.
+ * </p>
+ * <p>
+ * Any waiting test that fits is admitted, so small tests fill the gaps left by large ones. A waiting test that has been
+ * overtaken {@value #MAX_OVERTAKEN} times stops later tests from being admitted until it fits, so large tests are not
+ * starved. A test run from within another test, on the same thread, runs on the outer test's budget.
+ * </p>
+ * <p>
+ * Advice declared on a test class costs the class, not each of its tests: it is {@link #reserve(Cost) reserved} while the
+ * class runs. The tests of the class are admitted as if that reservation were free, so a class never waits on its own
+ * advice, whatever thread its tests run on. Advice that blocks, on a lock held by another test for instance, gives the
+ * budget back while it waits, see {@link #whileBlocked(Blocking)}.
+ * </p>
+ * 
+ * @author rex
+ */
+public final class ResourceBudget {
+
+  public static final String CPU_PROPERTY = "advisedtesting.budget.cpu";
+  public static final String MEMORY_PROPERTY = "advisedtesting.budget.memoryMb";
+  public static final int MAX_OVERTAKEN = 16;
+
+  private static final Cost DEFAULT_COST = new Cost(1, 0);
+
+  private static final ResourceBudget INSTANCE = new ResourceBudget(
+          SystemProperties.longProperty(CPU_PROPERTY, Runtime.getRuntime().availableProcessors()),
+          SystemProperties.longProperty(MEMORY_PROPERTY, Runtime.getRuntime().maxMemory() / (1024 * 1024)));
+
+  /**
+   * Costs of test methods, held against the test class so they are released with it.
+   */
+  private static final ClassValue<Map<Method, Cost>> COSTS_BY_TEST_CLASS = new ClassValue<Map<Method, Cost>>() {
+    @Override
+    protected Map<Method, Cost> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  };
+
+  private final ThreadLocal<Lease> held = new ThreadLocal<>();
+  private final long cpu;
+  private final long memoryMb;
+  // guarded by this.
+  private final List<Waiter> waiting = new ArrayList<>();
+  private long usedCpu;
+  private long usedMemoryMb;
+
+  ResourceBudget(long cpu, long memoryMb) {
+    this.cpu = Math.max(1, cpu);
+    this.memoryMb = Math.max(0, memoryMb);
+  }
+
+  public static ResourceBudget get() {
+    return INSTANCE;
+  }
+
+  /**
+   * The cost of a test method: its own {@link ResourceCost}, else the test class's, else the sum of the costs declared by
+   * the advice annotation types of the method, else one processor. Computed once per method.
+   * 
+   * @param testClass the class being run, which may inherit the method.
+   * @param method the test method.
+   * @return the test's cost.
+   */
+  public static Cost costOf(Class<?> testClass, Method method) {
+    return COSTS_BY_TEST_CLASS.get(testClass).computeIfAbsent(method, m -> computeCost(testClass, m));
+  }
+
+  private static Cost computeCost(Class<?> testClass, Method method) {
+    ResourceCost declared = method.getAnnotation(ResourceCost.class);
+    if (declared == null) {
+      declared = testClass.getAnnotation(ResourceCost.class);
+    }
+    if (declared != null) {
+      return new Cost(declared.cpu(), declared.memoryMb());
+    }
+    Cost advice = adviceCost(AdviceAnnotationEvaluator.adviceChain(method));
+    return advice == null ? DEFAULT_COST : new Cost(Math.max(1, advice.cpu), advice.memoryMb);
+  }
+
+  /**
+   * The cost of the advice declared on a test class, the sum of the costs declared by their annotation types.
+   * 
+   * @param testClass the class being run.
+   * @return the cost, or null if the class's advice declares none.
+   */
+  public static Cost classCostOf(Class<?> testClass) {
+    return adviceCost(AdviceAnnotationEvaluator.adviceChain(testClass));
+  }
+
+  private static Cost adviceCost(List<Annotation> advice) {
+    long adviceCpu = 0;
+    long adviceMemoryMb = 0;
+    for (Annotation annotation : advice) {
+      ResourceCost cost = annotation.annotationType().getAnnotation(ResourceCost.class);
+      if (cost != null) {
+        adviceCpu += cost.cpu();
+        adviceMemoryMb += cost.memoryMb();
+      }
+    }
+    return adviceCpu == 0 && adviceMemoryMb == 0 ? null : new Cost(adviceCpu, adviceMemoryMb);
+  }
+
+  /**
+   * Wait until the cost fits within the budget left, and take it.
+   * 
+   * @param cost of the test about to run.
+   * @return the lease on the budget, close it once the test has run.
+   * @throws InterruptedException if interrupted while waiting, nothing is taken then.
+   */
+  public Lease acquire(Cost cost) throws InterruptedException {
+    return take(cost, true, null);
+  }
+
+  /**
+   * Wait until the cost fits within the budget left, not counting the reservation of the test's class, and take it.
+   * 
+   * @param cost of the test about to run.
+   * @param reservation the lease {@link #reserve(Cost) reserved} for the test's class, or null.
+   * @return the lease on the budget, close it once the test has run.
+   * @throws InterruptedException if interrupted while waiting, nothing is taken then.
+   */
+  public Lease acquire(Cost cost, Lease reservation) throws InterruptedException {
+    return take(cost, true, reservation);
+  }
+
+  /**
+   * Wait until the cost of a test class's advice fits within the budget left, and take it. The tests of the class are
+   * admitted on their own costs, see {@link #acquire(Cost, Lease)}.
+   * 
+   * @param cost of the advice of the class about to run.
+   * @return the lease on the budget, close it once the class has run.
+   * @throws InterruptedException if interrupted while waiting, nothing is taken then.
+   */
+  public Lease reserve(Cost cost) throws InterruptedException {
+    return take(cost, false, null);
+  }
+
+  private Lease take(Cost cost, boolean forTest, Lease reservation) throws InterruptedException {
+    Lease enclosing = held.get();
+    if (enclosing != null && enclosing.forTest) {
+      return new Lease(null, 0, 0, false, null, null);
+    }
+    long wantedCpu = Math.min(cost.cpu, cpu);
+    long wantedMemoryMb = Math.min(cost.memoryMb, memoryMb);
+    Lease credit = reservation != null && reservation.budget == this ? reservation : null;
+    admit(wantedCpu, wantedMemoryMb, credit);
+    Lease lease = new Lease(this, wantedCpu, wantedMemoryMb, forTest, enclosing, credit);
+    held.set(lease);
+    return lease;
+  }
+
+  /**
+   * Run something that may block for long, with the budget of the calling thread's test, or else its test class, given
+   * back meanwhile so other tests may run. The budget is taken again, waiting for it if need be, before returning.
+   * 
+   * @param <T> the type of the result.
+   * @param blocking what may block.
+   * @return its result.
+   * @throws InterruptedException if interrupted while blocked, the budget is still taken again.
+   */
+  public <T> T whileBlocked(Blocking<T> blocking) throws InterruptedException {
+    Lease lease = held.get();
+    if (lease == null || lease.budget != this) {
+      return blocking.call();
+    }
+    release(lease.cpu, lease.memoryMb);
+    try {
+      return blocking.call();
+    } finally {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          admit(lease.cpu, lease.memoryMb, lease.reservation);
+          break;
+        } catch (InterruptedException ex) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Wait until the wanted cost fits, counting the reservation given, if any, as free.
+   */
+  private synchronized void admit(long wantedCpu, long wantedMemoryMb, Lease reservation) throws InterruptedException {
+    long freeCpu = reservation == null ? 0 : reservation.cpu;
+    long freeMemoryMb = reservation == null ? 0 : reservation.memoryMb;
+    Waiter self = new Waiter();
+    waiting.add(self);
+    try {
+      while (usedCpu - freeCpu + wantedCpu > cpu || usedMemoryMb - freeMemoryMb + wantedMemoryMb > memoryMb
+              || starvedAhead(self)) {
+        wait();
+      }
+    } catch (InterruptedException ex) {
+      waiting.remove(self);
+      notifyAll();
+      throw ex;
+    }
+    // every test still waiting ahead of this one has been overtaken.
+    int position = waiting.indexOf(self);
+    for (int i = 0; i < position; i++) {
+      waiting.get(i).overtaken++;
+    }
+    waiting.remove(position);
+    // tests held back behind this one may go now.
+    notifyAll();
+    usedCpu += wantedCpu;
+    usedMemoryMb += wantedMemoryMb;
+  }
+
+  public synchronized long getUsedCpu() {
+    return usedCpu;
+  }
+
+  public synchronized long getUsedMemoryMb() {
+    return usedMemoryMb;
+  }
+
+  private boolean starvedAhead(Waiter self) {
+    for (Waiter waiter : waiting) {
+      if (waiter == self) {
+        return false;
+      }
+      if (waiter.overtaken >= MAX_OVERTAKEN) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void close(Lease lease) {
+    if (held.get() == lease) {
+      if (lease.enclosing == null) {
+        held.remove();
+      } else {
+        held.set(lease.enclosing);
+      }
+    }
+    release(lease.cpu, lease.memoryMb);
+  }
+
+  private synchronized void release(long releasedCpu, long releasedMemoryMb) {
+    usedCpu -= releasedCpu;
+    usedMemoryMb -= releasedMemoryMb;
+    notifyAll();
+  }
+
+  /**
+   * Work that may block, see {@link ResourceBudget#whileBlocked(Blocking)}.
+   * 
+   * @param <T> the type of the result.
+   */
+  public interface Blocking<T> {
+    T call() throws InterruptedException;
+  }
+
+  /**
+   * What a test needs while it runs.
+   */
+  public static final class Cost {
+
+    private final long cpu;
+    private final long memoryMb;
+
+    public Cost(long cpu, long memoryMb) {
+      this.cpu = Math.max(0, cpu);
+      this.memoryMb = Math.max(0, memoryMb);
+    }
+
+    public long getCpu() {
+      return cpu;
+    }
+
+    public long getMemoryMb() {
+      return memoryMb;
+    }
+
+    @Override
+    public String toString() {
+      return "Cost [cpu=" + cpu + ", memoryMb=" + memoryMb + "]";
+    }
+  }
+
+  /**
+   * The budget taken by a running test.
+   */
+  public static final class Lease implements AutoCloseable {
+
+    private final ResourceBudget budget;
+    private final long cpu;
+    private final long memoryMb;
+    private final boolean forTest;
+    private final Lease enclosing;
+    private final Lease reservation;
+    private boolean closed;
+
+    private Lease(ResourceBudget budget, long cpu, long memoryMb, boolean forTest, Lease enclosing, Lease reservation) {
+      this.budget = budget;
+      this.cpu = cpu;
+      this.memoryMb = memoryMb;
+      this.forTest = forTest;
+      this.enclosing = enclosing;
+      this.reservation = reservation;
+    }
+
+    /**
+     * Give the budget back, only the first call counts. Should be called on the thread that took the lease.
+     */
+    @Override
+    public synchronized void close() {
+      if (!closed && budget != null) {
+        closed = true;
+        budget.close(this);
+      }
+    }
+  }
+
+  private static final class Waiter {
+
+    private int overtaken;
+  }
+
+}
@@ -0,0 +1,279 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.advisedtesting.core.AdviceListener;
+import com.github.advisedtesting.core.AdvisedTestingStatisticsMXBean;
+
+/**
+ * <p>
+ * The {@link AdvisedTestingStatisticsMXBean} of this jvm, only installed when the {@value #ENABLED_PROPERTY} system
+ * property is true. Every event arrives as an {@link AdviceListener}, first in {@link AdviceListeners}; modules owning
+ * classloaders or contexts report them through {@link com.github.advisedtesting.core.AdviceNotifier}.
+ * </p>
+ * <p>
+ * Every count is a {@link LongAdder} or an {@link AtomicLongArray} slot, updated without locks, so recording from many
+ * test threads does not contend.
+ * </p>
+ *
+ * @author rex
+ */
+public final class RunnerStatistics implements AdvisedTestingStatisticsMXBean, AdviceListener {
+
+  public static final String ENABLED_PROPERTY = "advisedtesting.jmx.enabled";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RunnerStatistics.class);
+
+  private static final RunnerStatistics INSTANCE = new RunnerStatistics();
+
+  // values under 16 micros have a bucket each, above that each power of two is split in eight.
+  private static final int LINEAR_BUCKETS = 16;
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int BUCKETS = LINEAR_BUCKETS + (64 - 4) * (1 << SUB_BUCKET_BITS);
+  private static final int SECONDS_PER_MINUTE = 60;
+
+  private final LongAdder started = new LongAdder();
+  private final LongAdder finished = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder skipped = new LongAdder();
+  private final LongAdder openContexts = new LongAdder();
+  private final LongAdder liveClassLoaders = new LongAdder();
+  private final LongAdder activeCaptures = new LongAdder();
+  private final AtomicLongArray latencies = new AtomicLongArray(BUCKETS);
+  private final AtomicLongArray finishedPerSecond = new AtomicLongArray(SECONDS_PER_MINUTE);
+  private final AtomicLongArray secondOfSlot = new AtomicLongArray(SECONDS_PER_MINUTE);
+  private final AtomicBoolean registered = new AtomicBoolean(false);
+
+  RunnerStatistics() {
+  }
+
+  public static RunnerStatistics get() {
+    return INSTANCE;
+  }
+
+  static boolean isEnabled() {
+    return Boolean.getBoolean(ENABLED_PROPERTY);
+  }
+
+  /**
+   * Registers the statistics with the platform MBean server, once, if enabled.
+   */
+  static void register() {
+    if (!isEnabled() || INSTANCE.registered.getAndSet(true)) {
+      return;
+    }
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+    } catch (JMException | RuntimeException | LinkageError ex) {
+      LOGGER.info("Advised testing statistics are not available over JMX", ex);
+    }
+  }
+
+  @Override
+  public void classLoaderCreated(ClassLoader classLoader) {
+    liveClassLoaders.increment();
+  }
+
+  @Override
+  public void classLoaderDiscarded(ClassLoader classLoader) {
+    liveClassLoaders.decrement();
+  }
+
+  @Override
+  public void contextOpened(Object context) {
+    openContexts.increment();
+  }
+
+  @Override
+  public void contextClosed(Object context) {
+    openContexts.decrement();
+  }
+
+  @Override
+  public void captureStarted(Object capture) {
+    activeCaptures.increment();
+  }
+
+  @Override
+  public void captureStopped(Object capture) {
+    activeCaptures.decrement();
+  }
+
+  @Override
+  public void testStarted(String test, long startNanos) {
+    started.increment();
+  }
+
+  @Override
+  public void testFinished(String test, long startNanos, Outcome outcome, Throwable failure) {
+    long now = System.nanoTime();
+    finished.increment();
+    if (outcome == Outcome.FAILURE) {
+      failed.increment();
+    } else if (outcome == Outcome.SKIPPED) {
+      skipped.increment();
+    }
+    latencies.incrementAndGet(bucket(TimeUnit.NANOSECONDS.toMicros(now - startNanos)));
+    long second = TimeUnit.NANOSECONDS.toSeconds(now);
+    int slot = (int) (second % SECONDS_PER_MINUTE);
+    long slotSecond = secondOfSlot.get(slot);
+    if (slotSecond != second && secondOfSlot.compareAndSet(slot, slotSecond, second)) {
+      // a test finishing on another thread in this instant may be lost, the count is approximate.
+      finishedPerSecond.set(slot, 0);
+    }
+    finishedPerSecond.incrementAndGet(slot);
+  }
+
+  @Override
+  public long getTestsStarted() {
+    return started.sum();
+  }
+
+  @Override
+  public long getTestsFinished() {
+    return finished.sum();
+  }
+
+  @Override
+  public long getTestsFailed() {
+    return failed.sum();
+  }
+
+  @Override
+  public long getTestsSkipped() {
+    return skipped.sum();
+  }
+
+  @Override
+  public long getTestsInFlight() {
+    return Math.max(0, started.sum() - finished.sum());
+  }
+
+  @Override
+  public long getTestsFinishedLastMinute() {
+    long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+    long total = 0;
+    for (int slot = 0; slot < SECONDS_PER_MINUTE; slot++) {
+      if (second - secondOfSlot.get(slot) < SECONDS_PER_MINUTE) {
+        total += finishedPerSecond.get(slot);
+      }
+    }
+    return total;
+  }
+
+  @Override
+  public double getTestLatencyP50Millis() {
+    return percentileMillis(0.50);
+  }
+
+  @Override
+  public double getTestLatencyP99Millis() {
+    return percentileMillis(0.99);
+  }
+
+  @Override
+  public long getCachedInterceptors() {
+    return TestContext.liveInterceptors();
+  }
+
+  @Override
+  public long getEvictedInterceptors() {
+    return TestContext.evictedInterceptors();
+  }
+
+  @Override
+  public long getLiveClassLoaders() {
+    return liveClassLoaders.sum();
+  }
+
+  @Override
+  public long getOpenContexts() {
+    return openContexts.sum();
+  }
+
+  @Override
+  public long getActiveCaptures() {
+    return activeCaptures.sum();
+  }
+
+  /**
+   * The latency of the bucket holding the percentile, taken as the middle of the bucket.
+   *
+   * @param percentile between 0 and 1.
+   * @return the latency in milliseconds, or 0 if no test finished.
+   */
+  double percentileMillis(double percentile) {
+    long[] counts = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = latencies.get(i);
+      total += counts[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return ((double) lowerBound(i) + lowerBound(i + 1)) / 2.0 / 1000.0;
+      }
+    }
+    return lowerBound(BUCKETS - 1) / 1000.0;
+  }
+
+  static int bucket(long micros) {
+    if (micros < LINEAR_BUCKETS) {
+      return (int) Math.max(0, micros);
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(micros);
+    int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+    return LINEAR_BUCKETS + ((exponent - 4) << SUB_BUCKET_BITS) + sub;
+  }
+
+  static long lowerBound(int bucket) {
+    if (bucket < LINEAR_BUCKETS) {
+      return bucket;
+    }
+    int exponent = ((bucket - LINEAR_BUCKETS) >> SUB_BUCKET_BITS) + 4;
+    int sub = (bucket - LINEAR_BUCKETS) & ((1 << SUB_BUCKET_BITS) - 1);
+    if (exponent > 62) {
+      return Long.MAX_VALUE;
+    }
+    return (1L << exponent) + ((long) sub << (exponent - SUB_BUCKET_BITS));
+  }
+
+}
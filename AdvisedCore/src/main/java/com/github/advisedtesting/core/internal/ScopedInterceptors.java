@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.advisedtesting.core.AdviceScope;
+
+/**
+ * <p>
+ * The {@link MethodInterceptor} instances of a single {@link AdviceScope}, one per interceptor class. A runner opens one of
+ * these per test class and per test, nesting the test's scope in the class's, and closes it when the scope ends.
+ * </p>
+ * <p>
+ * Lookups through {@link TestContext#getAdviceFor(java.lang.annotation.Annotation, ClassLoader, ScopedInterceptors)} walk
+ * the parents to find the scope the annotation asks for.
+ * </p>
+ * 
+ * @author rex
+ */
+public final class ScopedInterceptors implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ScopedInterceptors.class);
+
+  private final AdviceScope scope;
+  private final ScopedInterceptors parent;
+  private final Map<Class<?>, MethodInterceptor> interceptors = new ConcurrentHashMap<>();
+
+  /**
+   * Open a scope.
+   * 
+   * @param scope the scope instances held here belong to.
+   * @param parent the enclosing scope, or null.
+   */
+  public ScopedInterceptors(AdviceScope scope, ScopedInterceptors parent) {
+    this.scope = scope;
+    this.parent = parent;
+  }
+
+  public AdviceScope getScope() {
+    return scope;
+  }
+
+  /**
+   * This, or the closest enclosing, container for the scope.
+   * 
+   * @param wanted scope.
+   * @return the container or null if the scope is not open.
+   */
+  public ScopedInterceptors find(AdviceScope wanted) {
+    ScopedInterceptors current = this;
+    while (current != null && current.scope != wanted) {
+      current = current.parent;
+    }
+    return current;
+  }
+
+  /**
+   * Number of interceptors held.
+   * 
+   * @return count of live interceptors in this scope.
+   */
+  public int size() {
+    return interceptors.size();
+  }
+
+  MethodInterceptor get(Class<?> type, Function<Class<?>, MethodInterceptor> constructor) {
+    return interceptors.computeIfAbsent(type, constructor);
+  }
+
+  int evict(ClassLoader classLoader) {
+    int count = 0;
+    for (Iterator<MethodInterceptor> iterator = interceptors.values().iterator(); iterator.hasNext();) {
+      MethodInterceptor advice = iterator.next();
+      if (advice.getClass().getClassLoader() == classLoader) {
+        iterator.remove();
+        release(advice);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Close every {@link Closeable} interceptor held, and forget all of them.
+   */
+  @Override
+  public void close() {
+    drain().forEach(ScopedInterceptors::release);
+  }
+
+  /**
+   * Forget every interceptor held, without closing them.
+   */
+  List<MethodInterceptor> drain() {
+    List<MethodInterceptor> output = new ArrayList<>();
+    for (Iterator<MethodInterceptor> iterator = interceptors.values().iterator(); iterator.hasNext();) {
+      output.add(iterator.next());
+      iterator.remove();
+    }
+    return output;
+  }
+
+  private static void release(MethodInterceptor advice) {
+    if (advice instanceof Closeable) {
+      try {
+        ((Closeable) advice).close();
+      } catch (final IOException ex) {
+        LOGGER.error("Error closing advice methods", ex);
+      }
+    }
+  }
+
+}
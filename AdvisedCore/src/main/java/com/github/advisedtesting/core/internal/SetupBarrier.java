@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+import com.github.advisedtesting.core.AsyncContextAwareMethodInvocation;
+
+/**
+ * Collects the setup stages started by {@link com.github.advisedtesting.core.AsyncMethodInterceptor}s for a single test
+ * execution, so that anything that depends on them (synchronous advices, the test body) can wait for all of them.
+ * 
+ * @author rex
+ */
+public class SetupBarrier {
+
+  private final List<CompletableFuture<?>> pending = new ArrayList<>();
+
+  /**
+   * Add a setup stage, as passed to {@link AsyncContextAwareMethodInvocation#proceedAsync(CompletionStage)}.
+   * 
+   * @param setup stage that must complete before the test body runs.
+   */
+  public synchronized void add(CompletionStage<?> setup) {
+    if (setup != null) {
+      pending.add(setup.toCompletableFuture());
+    }
+  }
+
+  /**
+   * Wait for every setup stage added so far, in the order they were added.
+   * 
+   * @throws Throwable the failure of the first failed setup stage.
+   */
+  public void await() throws Throwable {
+    List<CompletableFuture<?>> waitingOn;
+    synchronized (this) {
+      if (pending.isEmpty()) {
+        return;
+      }
+      waitingOn = new ArrayList<>(pending);
+      pending.clear();
+    }
+    for (CompletableFuture<?> setup : waitingOn) {
+      await(setup);
+    }
+  }
+
+  /**
+   * Wait on a stage, unwrapping its failure.
+   * 
+   * @param <T> type of the stage's result.
+   * @param stage to wait on.
+   * @return the stage's result.
+   * @throws Throwable the failure of the stage.
+   */
+  public static <T> T await(CompletionStage<T> stage) throws Throwable {
+    try {
+      return stage.toCompletableFuture().get();
+    } catch (ExecutionException ex) {
+      throw ex.getCause() != null ? ex.getCause() : ex;
+    }
+  }
+
+  /**
+   * A stage that has already failed, with the input throwable.
+   * 
+   * @param <T> type of the stage's result.
+   * @param throwable the failure.
+   * @return the failed stage.
+   */
+  public static <T> CompletableFuture<T> failed(Throwable throwable) {
+    CompletableFuture<T> output = new CompletableFuture<>();
+    output.completeExceptionally(throwable);
+    return output;
+  }
+
+}
@@ -0,0 +1,222 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.advisedtesting.core.ObjectFactory;
+
+/**
+ * <p>
+ * Suite wide registry of {@link ObjectFactory} instances published by advices under a key, so that an expensive fixture
+ * identical across test classes is built once and shared. Each consumer holds a {@link Lease} for as long as it uses the
+ * factory; the factory is built by the first consumer and is reference counted from then on.
+ * </p>
+ * <p>
+ * When the last lease is closed the factory becomes idle, and is kept for the next test or test class to pick up. Setting
+ * the {@value #IDLE_PROPERTY} system property bounds how many idle factories are kept, the least recently released beyond
+ * that are closed; 0 closes a factory with its last lease. Every remaining factory is closed when the
+ * {@link TestContext} is closed.
+ * </p>
+ * 
+ * @author rex
+ */
+public final class SharedObjectFactories {
+
+  public static final String IDLE_PROPERTY = "advisedtesting.shared.idle";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SharedObjectFactories.class);
+
+  // guarded by ENTRIES.
+  private static final Map<Object, Entry> ENTRIES = new HashMap<>();
+  // insertion ordered, so eldest first.
+  private static final Map<Object, Entry> IDLE = new LinkedHashMap<>();
+
+  private SharedObjectFactories() {
+  }
+
+  /**
+   * Lease the factory published under the key, building it with the builder if no consumer has yet. Concurrent
+   * consumers of the same key wait for a single build, a failed build is retried by the next consumer.
+   * 
+   * @param key identifies the fixture, must implement equals and hashCode.
+   * @param builder builds the factory, called at most once per live key.
+   * @return a lease on the factory, close it when done with the factory.
+   * @throws Throwable if the builder fails.
+   */
+  public static Lease acquire(Object key, Callable<? extends ObjectFactory> builder) throws Throwable {
+    Entry entry;
+    synchronized (ENTRIES) {
+      entry = ENTRIES.computeIfAbsent(key, Entry::new);
+      entry.references++;
+      IDLE.remove(key);
+    }
+    try {
+      return new Lease(entry, entry.factory(builder));
+    } catch (Throwable th) {
+      release(entry);
+      throw th;
+    }
+  }
+
+  /**
+   * Number of published factories, leased or idle.
+   * 
+   * @return count of factories held.
+   */
+  public static int size() {
+    synchronized (ENTRIES) {
+      return ENTRIES.size();
+    }
+  }
+
+  /**
+   * Close every factory, leased or not, and forget them.
+   */
+  static void closeAll() {
+    drain().forEach(Entry::close);
+  }
+
+  /**
+   * Forget every factory, leaving them to the closer.
+   */
+  static void drainInto(ParallelCloser closer) {
+    for (Entry entry : drain()) {
+      closer.add("shared object factory " + entry.key, entry::close);
+    }
+  }
+
+  private static List<Entry> drain() {
+    List<Entry> output;
+    synchronized (ENTRIES) {
+      output = new ArrayList<>(ENTRIES.values());
+      ENTRIES.clear();
+      IDLE.clear();
+    }
+    return output;
+  }
+
+  private static void release(Entry entry) {
+    List<Entry> closing = new ArrayList<>();
+    synchronized (ENTRIES) {
+      if (--entry.references == 0 && ENTRIES.get(entry.key) == entry) {
+        IDLE.put(entry.key, entry);
+        int maxIdle = maxIdle();
+        for (Iterator<Entry> eldest = IDLE.values().iterator(); IDLE.size() > maxIdle && eldest.hasNext();) {
+          Entry evicted = eldest.next();
+          eldest.remove();
+          ENTRIES.remove(evicted.key);
+          closing.add(evicted);
+        }
+      }
+    }
+    closing.forEach(Entry::close);
+  }
+
+  private static int maxIdle() {
+    return Math.max(0, SystemProperties.intProperty(IDLE_PROPERTY, Integer.MAX_VALUE));
+  }
+
+  /**
+   * A consumer's hold on a shared factory.
+   */
+  public static final class Lease implements Closeable {
+
+    private final Entry entry;
+    private final ObjectFactory factory;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private Lease(Entry entry, ObjectFactory factory) {
+      this.entry = entry;
+      this.factory = factory;
+    }
+
+    public ObjectFactory getObjectFactory() {
+      return factory;
+    }
+
+    /**
+     * Give the factory back, only the first call counts.
+     */
+    @Override
+    public void close() {
+      if (!closed.getAndSet(true)) {
+        release(entry);
+      }
+    }
+  }
+
+  private static final class Entry {
+
+    private final Object key;
+    // guarded by ENTRIES.
+    private int references;
+    private volatile ObjectFactory factory;
+
+    private Entry(Object key) {
+      this.key = key;
+    }
+
+    private ObjectFactory factory(Callable<? extends ObjectFactory> builder) throws Throwable {
+      ObjectFactory current = factory;
+      if (current == null) {
+        synchronized (this) {
+          current = factory;
+          if (current == null) {
+            current = builder.call();
+            factory = current;
+          }
+        }
+      }
+      return current;
+    }
+
+    private void close() {
+      ObjectFactory current;
+      synchronized (this) {
+        current = factory;
+        factory = null;
+      }
+      if (current instanceof Closeable) {
+        try {
+          ((Closeable) current).close();
+        } catch (IOException ex) {
+          LOGGER.error("Error closing shared object factory " + key, ex);
+        }
+      }
+    }
+  }
+
+}
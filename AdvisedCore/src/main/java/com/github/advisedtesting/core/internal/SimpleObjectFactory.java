@@ -22,60 +22,113 @@
  */
 package com.github.advisedtesting.core.internal;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.github.advisedtesting.core.ObjectFactory;
 
+/**
+ * An {@link ObjectFactory} over named objects. Lookups read an immutable snapshot of the objects, taken on the first
+ * lookup after an {@link #add(String, Object)}, so lookups from any thread never see a partial add and only lock to take
+ * the snapshot. Each snapshot indexes the objects matching a requested type on the first request for that type.
+ */
 public class SimpleObjectFactory implements ObjectFactory {
 
-  private final Map<String, Object> contents = new LinkedHashMap<>();
+  // guarded by this.
+  private final Map<String, Object> objects;
+  // null once an add made it stale, until the next lookup.
+  private volatile Contents contents;
 
   public SimpleObjectFactory() {
+    this(Collections.emptyMap());
   }
   
   public SimpleObjectFactory(Map<String, Object> contexts) {
-    contents.putAll(contexts);
+    objects = new LinkedHashMap<>(contexts);
   }
 
   public void add(String name, Object value) {
-    contents.put(name, value);
+    synchronized (this) {
+      objects.put(name, value);
+      contents = null;
+    }
   }
 
+  @SuppressWarnings("unchecked")
   @Override
   public <T> T getObject(Class<T> type) {
-    @SuppressWarnings("unchecked")
-    Map<String, ? extends T> possibleOutputs = (Map<String, ? extends T>) contents.entrySet().stream()
-            .filter(o -> type.isAssignableFrom(o.getValue().getClass()))
-            .collect(Collectors.toMap(entry -> entry.getKey(), entry -> entry.getValue()));
-    if (possibleOutputs.size() == 1) {
-      return possibleOutputs.values().iterator().next();
-    }
-    if (possibleOutputs.size() > 1) {
+    TypeMatches matches = contents().matchesFor(type);
+    if (matches.byName.size() > 1) {
       throw new IllegalStateException("Multiple objects from the ObjectFactory can satisfy that type, but we"
-              + " are searching for a singleton. Matching names are " + possibleOutputs.keySet());
+              + " are searching for a singleton. Matching names are " + matches.byName.keySet());
     }
-    return null;
+    return (T) matches.single;
   }
 
+  @SuppressWarnings("unchecked")
   @Override
   public <T> T getObject(String name, Class<T> type) {
-    return getAllObjects(type).get(name);
+    Object value = contents().byName.get(name);
+    return type.isInstance(value) ? (T) value : null;
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public <T> Map<String, T> getAllObjects(Class<T> type) {
-    Map<String, T> output = new HashMap<>();
-    contents.entrySet().forEach(e -> {
-      if (e.getValue() != null
-          && type.isAssignableFrom(e.getValue().getClass())) {
-        output.put(e.getKey(), (T) e.getValue());
+    return new LinkedHashMap<>((Map<String, T>) contents().matchesFor(type).byName);
+  }
+
+  private Contents contents() {
+    Contents current = contents;
+    if (current == null) {
+      synchronized (this) {
+        current = contents;
+        if (current == null) {
+          current = new Contents(new LinkedHashMap<>(objects));
+          contents = current;
+        }
       }
-    });
-    return output;
+    }
+    return current;
+  }
+
+  private static final class Contents {
+
+    private final Map<String, Object> byName;
+    // objects assignable to a requested type, computed on the first request for that type.
+    private final Map<Class<?>, TypeMatches> matchesByType = new ConcurrentHashMap<>();
+
+    private Contents(Map<String, Object> byName) {
+      this.byName = byName;
+    }
+
+    private TypeMatches matchesFor(Class<?> type) {
+      TypeMatches matches = matchesByType.get(type);
+      if (matches == null) {
+        matches = new TypeMatches(type, byName);
+        matchesByType.put(type, matches);
+      }
+      return matches;
+    }
+  }
+
+  private static final class TypeMatches {
+
+    private final Map<String, Object> byName;
+    private final Object single;
+
+    private TypeMatches(Class<?> type, Map<String, Object> contents) {
+      Map<String, Object> found = new LinkedHashMap<>();
+      contents.forEach((name, value) -> {
+        if (type.isInstance(value)) {
+          found.put(name, value);
+        }
+      });
+      this.byName = Collections.unmodifiableMap(found);
+      this.single = found.size() == 1 ? found.values().iterator().next() : null;
+    }
   }
  
 }
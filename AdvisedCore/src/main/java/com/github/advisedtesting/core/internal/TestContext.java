@@ -25,15 +25,23 @@ package com.github.advisedtesting.core.internal;
 import java.io.Closeable;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.advisedtesting.core.AdviceScope;
+
 /**
  * This is a context meant to be used with testing classes, which decouples the ability to add meaningful annotations to a test
  * method from the test runner. There are some incidental couplings to be aware of however. First the annotation must specify a
@@ -42,26 +50,60 @@ import org.slf4j.LoggerFactory;
  * argument constructor, or with synchronized logic. Fourth if a {@link MethodInterceptor} needs to tear down state it has
  * constructed, it should implement {@link Closeable} Fifth the marking {@link Annotation} should have a single parameter
  * implementedBy with a default value of the Class of the {@link MethodInterceptor} the author wishes to use.
+ * <p>
+ * {@link MethodInterceptor} instances are cached per interceptor class, as loaded by the requesting classloader. The
+ * instance is stored against its own class, so an interceptor loaded by a test classloader does not keep that classloader
+ * alive. Use {@link #evict(ClassLoader)} to close interceptors of a classloader that is being discarded.
+ * </p>
+ * <p>
+ * An annotation may declare a scope field, see {@link AdviceScope}. Thread scoped instances are held here, test class and
+ * test scoped instances are held by the {@link ScopedInterceptors} a runner passes to
+ * {@link #getAdviceFor(Annotation, ClassLoader, ScopedInterceptors)}, and are closed by it.
+ * </p>
  * 
  * @author rex
  */
 public class TestContext {
 
+  public static final String CLOSE_TIMEOUT_PROPERTY = "advisedtesting.close.timeout";
+  public static final String CLOSE_GLOBAL_TIMEOUT_PROPERTY = "advisedtesting.close.globalTimeout";
+  public static final long DEFAULT_CLOSE_TIMEOUT_MILLIS = 10_000;
+  public static final long DEFAULT_CLOSE_GLOBAL_TIMEOUT_MILLIS = 30_000;
+
   private static final Logger LOGGER = LoggerFactory.getLogger(TestContext.class);
-  private static final ConcurrentHashMap<Class<? extends MethodInterceptor>, MethodInterceptor> INTECEPTORCLASS_TO_INSTANCE = 
-          new ConcurrentHashMap<>();
+
+  private static final ClassValue<InterceptorHolder> INTERCEPTORS = new ClassValue<InterceptorHolder>() {
+    @Override
+    protected InterceptorHolder computeValue(Class<?> type) {
+      return new InterceptorHolder(type);
+    }
+  };
+
+  // every interceptor built, weakly held, so they may be closed and counted without pinning their classloaders.
+  private static final Set<InterceptorReference> INTERCEPTOR_REFERENCES = ConcurrentHashMap.newKeySet();
+  private static final ReferenceQueue<MethodInterceptor> COLLECTED_INTERCEPTORS = new ReferenceQueue<>();
+  private static final AtomicLong EVICTED_INTERCEPTORS = new AtomicLong();
+  private static final AtomicBoolean SHUTDOWN_HOOK_REGISTERED = new AtomicBoolean(false);
+
+  // every thread's scope, so they may be closed along with the singletons.
+  private static final Set<ScopedInterceptors> THREAD_SCOPES = ConcurrentHashMap.newKeySet();
+  private static final ThreadLocal<ScopedInterceptors> THREAD_INTERCEPTORS = ThreadLocal.withInitial(() -> {
+    ScopedInterceptors scope = new ScopedInterceptors(AdviceScope.THREAD, null);
+    THREAD_SCOPES.add(scope);
+    return scope;
+  });
+
   private final AtomicBoolean closed = new AtomicBoolean(false);
 
   /**
-   * When the context is constructed, it is registered for destruction.
+   * When the first context is constructed, a single shutdown hook is registered to close all cached advice, and the
+   * {@link RunnerStatistics} are registered with the platform MBean server if enabled.
    */
   public TestContext() {
-    Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
-      @Override
-      public void run() {
-        TestContext.this.close();
-      }
-    }));
+    if (!SHUTDOWN_HOOK_REGISTERED.getAndSet(true)) {
+      Runtime.getRuntime().addShutdownHook(new Thread(TestContext::closeAll, "advised-testing-shutdown"));
+      RunnerStatistics.register();
+    }
   }
 
   /**
@@ -75,47 +117,174 @@ public class TestContext {
    * @return an advice instance singleton from the annotationClass's implementedBy parameter if any, and is constructible, or null.
    */
   public MethodInterceptor getAdviceFor(final Annotation annotation, ClassLoader classLoader) {
+    return getAdviceFor(annotation, classLoader, null);
+  }
+
+  /**
+   * Build and cache, or retrieve, the {@link MethodInterceptor} associated with the annotation, in the {@link AdviceScope}
+   * the annotation declares. Test class and test scoped advice are held in the matching container found from scopes, if
+   * there is none the advice is treated as a singleton.
+   * 
+   * @param annotation
+   *          the annotation who's related {@link MethodInterceptor} instance will be returned.
+   * @param classLoader in which to load the MethodInterceptor.
+   * @param scopes the innermost open scope of the caller, may be null.
+   * 
+   * @return an advice instance for the annotation's scope, or null.
+   */
+  public MethodInterceptor getAdviceFor(final Annotation annotation, ClassLoader classLoader, ScopedInterceptors scopes) {
     if (closed.get() || annotation == null) {
       return null;
-    } else {
-      Class<MethodInterceptor> adviceClass = extractAdviceClass(annotation, classLoader);
-      if (adviceClass == null) {
-        return null;
-      }
-      INTECEPTORCLASS_TO_INSTANCE.computeIfAbsent(adviceClass, a -> {
-        return callZeroArguementConstructor(adviceClass);
-      });
-      return INTECEPTORCLASS_TO_INSTANCE.get(adviceClass);
     }
+    Class<MethodInterceptor> adviceClass = extractAdviceClass(annotation, classLoader);
+    if (adviceClass == null) {
+      return null;
+    }
+    AdviceScope scope = AnnotationAttributes.of(annotation).getScope(annotation);
+    if (scope == AdviceScope.THREAD) {
+      return THREAD_INTERCEPTORS.get().get(adviceClass, TestContext::instantiate);
+    }
+    ScopedInterceptors found = scope == AdviceScope.SINGLETON || scopes == null ? null : scopes.find(scope);
+    if (found != null) {
+      return found.get(adviceClass, TestContext::instantiate);
+    }
+    return INTERCEPTORS.get(adviceClass).get();
   }
 
   /**
-   * Call all close methods implemented by any {@link MethodInterceptor} instances stored in local cache.
+   * Call all close methods implemented by any {@link MethodInterceptor} instances stored in local cache, and close the
+   * {@link SharedObjectFactories}. Everything is closed concurrently; anything taking longer than
+   * {@value #CLOSE_TIMEOUT_PROPERTY} milliseconds, or than {@value #CLOSE_GLOBAL_TIMEOUT_PROPERTY} for everything, is
+   * abandoned and reported.
    */
   public void close() {
     if (!closed.getAndSet(true)) {
-      for (final Object advice : INTECEPTORCLASS_TO_INSTANCE.values()) {
-        if (Closeable.class.isAssignableFrom(advice.getClass())) {
-          try {
-            ((Closeable) advice).close();
-          } catch (final IOException ex) {
-            LOGGER.error("Error closing advice methods", ex);
-          }
+      closeAll();
+    }
+  }
+
+  /**
+   * Close, and drop from the cache, every {@link MethodInterceptor} whose class was loaded by the classloader.
+   * 
+   * @param classLoader that is being discarded.
+   * @return the number of interceptors evicted.
+   */
+  public int evict(ClassLoader classLoader) {
+    int count = 0;
+    for (InterceptorReference reference : INTERCEPTOR_REFERENCES) {
+      MethodInterceptor advice = reference.get();
+      if (advice != null && advice.getClass().getClassLoader() == classLoader) {
+        release(reference, advice);
+        count++;
+      }
+    }
+    for (ScopedInterceptors scope : THREAD_SCOPES) {
+      count += scope.evict(classLoader);
+    }
+    EVICTED_INTERCEPTORS.addAndGet(count);
+    return count;
+  }
+
+  /**
+   * Close the {@link AdviceScope#THREAD} scoped advice of the calling thread, and forget its scope. Called by a runner's
+   * worker thread before it exits, so per class pools do not leave their threads' advice open until shutdown.
+   */
+  public static void closeThreadScope() {
+    ScopedInterceptors scope = THREAD_INTERCEPTORS.get();
+    THREAD_INTERCEPTORS.remove();
+    if (THREAD_SCOPES.remove(scope)) {
+      scope.close();
+    }
+  }
+
+  /**
+   * Number of cached singleton {@link MethodInterceptor} instances still reachable.
+   * 
+   * @return count of live interceptors.
+   */
+  public int getLiveInterceptorCount() {
+    return liveInterceptors();
+  }
+
+  /**
+   * Number of {@link MethodInterceptor} instances dropped, either by {@link #evict(ClassLoader)} or because their
+   * classloader was garbage collected.
+   * 
+   * @return count of evicted interceptors.
+   */
+  public long getEvictedInterceptorCount() {
+    return evictedInterceptors();
+  }
+
+  static int liveInterceptors() {
+    expungeCollected();
+    return INTERCEPTOR_REFERENCES.size();
+  }
+
+  static long evictedInterceptors() {
+    expungeCollected();
+    return EVICTED_INTERCEPTORS.get();
+  }
+
+  private static void closeAll() {
+    closeAll(SystemProperties.longProperty(CLOSE_TIMEOUT_PROPERTY, DEFAULT_CLOSE_TIMEOUT_MILLIS),
+            SystemProperties.longProperty(CLOSE_GLOBAL_TIMEOUT_PROPERTY, DEFAULT_CLOSE_GLOBAL_TIMEOUT_MILLIS));
+  }
+
+  /**
+   * Close every cached advice, thread scoped advice and shared object factory concurrently, see {@link ParallelCloser}.
+   * 
+   * @return the names of what did not close in time.
+   */
+  static List<String> closeAll(long timeoutMillis, long globalTimeoutMillis) {
+    ParallelCloser closer = new ParallelCloser();
+    for (InterceptorReference reference : INTERCEPTOR_REFERENCES) {
+      MethodInterceptor advice = reference.get();
+      if (advice != null && forget(reference, advice) && advice instanceof Closeable) {
+        closer.add(advice.getClass().getName(), (Closeable) advice);
+      }
+    }
+    for (ScopedInterceptors scope : THREAD_SCOPES) {
+      for (MethodInterceptor advice : scope.drain()) {
+        if (advice instanceof Closeable) {
+          closer.add(advice.getClass().getName() + " (thread scoped)", (Closeable) advice);
         }
       }
     }
+    SharedObjectFactories.drainInto(closer);
+    expungeCollected();
+    return closer.close(timeoutMillis, globalTimeoutMillis);
+  }
+
+  private static void release(InterceptorReference reference, MethodInterceptor advice) {
+    if (forget(reference, advice) && advice instanceof Closeable) {
+      try {
+        ((Closeable) advice).close();
+      } catch (final IOException ex) {
+        LOGGER.error("Error closing advice methods", ex);
+      }
+    }
+  }
+
+  private static boolean forget(InterceptorReference reference, MethodInterceptor advice) {
+    if (INTERCEPTOR_REFERENCES.remove(reference)) {
+      INTERCEPTORS.remove(advice.getClass());
+      return true;
+    }
+    return false;
+  }
+
+  private static void expungeCollected() {
+    Reference<? extends MethodInterceptor> reference;
+    while ((reference = COLLECTED_INTERCEPTORS.poll()) != null) {
+      if (INTERCEPTOR_REFERENCES.remove(reference)) {
+        EVICTED_INTERCEPTORS.incrementAndGet();
+      }
+    }
   }
   
   public boolean isAdviceAnnotation(final Annotation annotation) {
-    try {
-      @SuppressWarnings("unchecked")
-      Class<MethodInterceptor> interceptor = (Class<MethodInterceptor>) annotation.annotationType()
-              .getMethod("implementedBy").invoke(annotation);
-      return interceptor != null;
-    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException | NoSuchMethodException
-            | SecurityException ex) {
-      return false;
-    }
+    return annotation != null && AnnotationAttributes.of(annotation).getImplementedBy(annotation) != null;
   }
 
   /**
@@ -127,19 +296,35 @@ public class TestContext {
    */
   @SuppressWarnings("unchecked")
   private Class<MethodInterceptor> extractAdviceClass(final Annotation annotation, ClassLoader classloader) {
+    Class<?> interceptor = AnnotationAttributes.of(annotation).getImplementedBy(annotation);
+    try {
+      if (interceptor != null) {
+        return (Class<MethodInterceptor>) classloader.loadClass(interceptor.getName());
+      }
+    } catch (ClassNotFoundException ex) {
+      // logged below.
+    }
+    LOGGER.info("Annotations of type " + annotation.annotationType().getSimpleName()
+            + " does not have an usable implementedBy field (references a class that implements MethodInterceptor)");
+    return null;
+  }
+
+  private static MethodInterceptor instantiate(Class<?> type) {
+    AdviceEvents.Span span = AdviceEvents.interceptorInstantiation(type);
+    Object built;
     try {
-      Class<MethodInterceptor> interceptor = (Class<MethodInterceptor>) annotation.annotationType()
-               .getMethod("implementedBy").invoke(annotation);
-      return (Class<MethodInterceptor>) classloader.loadClass(interceptor.getName());
-    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException | NoSuchMethodException
-            | SecurityException | ClassNotFoundException ex) {
-      LOGGER.info("Annotations of type " + annotation.annotationType().getSimpleName()
-              + " does not have an usable implementedBy field (references a class that implements MethodInterceptor)");
+      built = callZeroArguementConstructor(type);
+    } finally {
+      span.end();
+    }
+    if (built instanceof MethodInterceptor) {
+      AdviceListeners.adviceCreated((MethodInterceptor) built);
+      return (MethodInterceptor) built;
     }
     return null;
   }
 
-  private <T> T callZeroArguementConstructor(final Class<T> clazz) {
+  private static <T> T callZeroArguementConstructor(final Class<T> clazz) {
     if (clazz == null) {
       return null;
     }
@@ -154,4 +339,41 @@ public class TestContext {
     }
   }
 
+  /**
+   * Lazily constructs the single instance of an interceptor class, at most once.
+   */
+  private static final class InterceptorHolder {
+
+    private final Class<?> type;
+    private volatile boolean constructed = false;
+    private MethodInterceptor instance;
+
+    private InterceptorHolder(Class<?> type) {
+      this.type = type;
+    }
+
+    private MethodInterceptor get() {
+      if (!constructed) {
+        synchronized (this) {
+          if (!constructed) {
+            instance = instantiate(type);
+            if (instance != null) {
+              expungeCollected();
+              INTERCEPTOR_REFERENCES.add(new InterceptorReference(instance));
+            }
+            constructed = true;
+          }
+        }
+      }
+      return instance;
+    }
+  }
+
+  private static final class InterceptorReference extends WeakReference<MethodInterceptor> {
+
+    private InterceptorReference(MethodInterceptor referent) {
+      super(referent, COLLECTED_INTERCEPTORS);
+    }
+  }
+
 }
@@ -0,0 +1,266 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.advisedtesting.core.AdviceListener;
+
+/**
+ * <p>
+ * Records every test, advice and advice preparation span, and writes them as a Chrome trace-event file that chrome://tracing or
+ * ui.perfetto.dev can open, one row per thread. Installed by {@link AdviceListeners} when the {@value #FILE_PROPERTY}
+ * system property names the file to write, which happens once, when the jvm shuts down.
+ * </p>
+ * <p>
+ * Each thread appends to it's own buffer of longs, three per span: the interned name and category, the start, and the
+ * duration. Nothing is shared while recording, short of interning a name the first time it's seen.
+ * </p>
+ *
+ * @author rex
+ */
+public final class TraceEventListener implements AdviceListener {
+
+  public static final String FILE_PROPERTY = "advisedtesting.trace.file";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TraceEventListener.class);
+
+  private static final int TEST = 0;
+  private static final int ADVICE = 1;
+  private static final int PREPARATION = 2;
+  private static final String[] CATEGORIES = { "test", "advice", "preparation" };
+
+  private final long origin = System.nanoTime();
+  private final ConcurrentHashMap<String, Integer> nameIds = new ConcurrentHashMap<>();
+  private final List<String> names = new ArrayList<>();
+  private final Queue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+  private final ThreadLocal<Buffer> buffer = ThreadLocal.withInitial(this::newBuffer);
+  private final AtomicBoolean written = new AtomicBoolean();
+
+  /**
+   * Installs a recorder writing to the file named by {@value #FILE_PROPERTY} at shutdown, if set.
+   *
+   * @return the recorder, or null if the property is not set.
+   */
+  static TraceEventListener fromSystemProperty() {
+    String file = System.getProperty(FILE_PROPERTY, "").trim();
+    if (file.isEmpty()) {
+      return null;
+    }
+    TraceEventListener listener = new TraceEventListener();
+    Path path = Paths.get(file);
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> listener.writeTo(path), "advised-testing-trace"));
+    return listener;
+  }
+
+  @Override
+  public void testStarted(String test, long startNanos) {
+    buffer.get().begin(intern(test), TEST);
+  }
+
+  @Override
+  public void testFinished(String test, long startNanos, Outcome outcome, Throwable failure) {
+    buffer.get().end();
+  }
+
+  @Override
+  public void preparationStarted(String test, Annotation annotation, MethodInterceptor advice) {
+    buffer.get().begin(intern(annotation.annotationType().getName()), PREPARATION);
+  }
+
+  @Override
+  public void preparationFinished(String test, Annotation annotation, MethodInterceptor advice, Throwable failure) {
+    buffer.get().end();
+  }
+
+  @Override
+  public void adviceEntered(String test, Annotation annotation, MethodInterceptor advice) {
+    buffer.get().begin(intern(annotation.annotationType().getName()), ADVICE);
+  }
+
+  @Override
+  public void adviceExited(String test, Annotation annotation, MethodInterceptor advice, Throwable failure) {
+    buffer.get().end();
+  }
+
+  /**
+   * Writes the trace once, later calls do nothing. The file is replaced atomically where the filesystem allows.
+   *
+   * @param path to write.
+   */
+  void writeTo(Path path) {
+    if (!written.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      Path absolute = path.toAbsolutePath();
+      if (absolute.getParent() != null) {
+        Files.createDirectories(absolute.getParent());
+      }
+      Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+      try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+        write(writer);
+      }
+      Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING);
+      LOGGER.info("Wrote the advised testing trace to " + absolute);
+    } catch (IOException | RuntimeException ex) {
+      LOGGER.warn("Could not write the advised testing trace to " + path, ex);
+    }
+  }
+
+  /**
+   * Writes the completed spans recorded so far as a trace-event json object.
+   *
+   * @param writer to write to.
+   * @throws IOException if the writer does.
+   */
+  void write(Writer writer) throws IOException {
+    String[] nameTable;
+    synchronized (names) {
+      nameTable = names.toArray(new String[names.size()]);
+    }
+    writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+    boolean first = true;
+    for (Buffer each : buffers) {
+      int size = each.size;
+      long[] spans = each.spans;
+      writer.write(first ? "\n" : ",\n");
+      first = false;
+      writer.write("{\"ph\":\"M\",\"pid\":1,\"tid\":" + each.threadId + ",\"name\":\"thread_name\",\"args\":{\"name\":");
+      quote(writer, each.threadName);
+      writer.write("}}");
+      for (int i = 0; i < size; i += 3) {
+        int nameId = (int) (spans[i] >>> 2);
+        writer.write(",\n{\"ph\":\"X\",\"pid\":1,\"tid\":" + each.threadId + ",\"cat\":\""
+                + CATEGORIES[(int) (spans[i] & 3)] + "\",\"name\":");
+        quote(writer, nameId < nameTable.length ? nameTable[nameId] : "?");
+        writer.write(",\"ts\":" + micros(spans[i + 1]) + ",\"dur\":" + micros(spans[i + 2]) + "}");
+      }
+    }
+    writer.write("\n]}\n");
+  }
+
+  private static String micros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos) + "." + String.format("%03d", nanos % 1000);
+  }
+
+  private static void quote(Writer writer, String value) throws IOException {
+    writer.write('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        writer.write('\\');
+        writer.write(c);
+      } else if (c < 0x20) {
+        writer.write(String.format("\\u%04x", (int) c));
+      } else {
+        writer.write(c);
+      }
+    }
+    writer.write('"');
+  }
+
+  private int intern(String name) {
+    Integer id = nameIds.get(name);
+    if (id != null) {
+      return id;
+    }
+    synchronized (names) {
+      return nameIds.computeIfAbsent(name, key -> {
+        names.add(key);
+        return names.size() - 1;
+      });
+    }
+  }
+
+  private Buffer newBuffer() {
+    Buffer created = new Buffer(Thread.currentThread());
+    buffers.add(created);
+    return created;
+  }
+
+  /**
+   * Spans recorded by a single thread. Only the owning thread writes; the size is published after the span it counts,
+   * so a reader taking the size first sees only complete spans.
+   */
+  private final class Buffer {
+
+    private final long threadId;
+    private final String threadName;
+    private long[] spans = new long[96];
+    private volatile int size = 0;
+    private long[] open = new long[16];
+    private int depth = 0;
+
+    private Buffer(Thread thread) {
+      this.threadId = thread.getId();
+      this.threadName = thread.getName();
+    }
+
+    private void begin(int nameId, int category) {
+      if (depth + 2 > open.length) {
+        open = Arrays.copyOf(open, open.length * 2);
+      }
+      open[depth++] = ((long) nameId << 2) | category;
+      open[depth++] = System.nanoTime() - origin;
+    }
+
+    private void end() {
+      if (depth == 0) {
+        return;
+      }
+      long start = open[--depth];
+      long key = open[--depth];
+      int at = size;
+      long[] target = spans;
+      if (at + 3 > target.length) {
+        target = Arrays.copyOf(target, target.length * 2);
+        spans = target;
+      }
+      target[at] = key;
+      target[at + 1] = start;
+      target[at + 2] = System.nanoTime() - origin - start;
+      size = at + 3;
+    }
+  }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import com.github.advisedtesting.core.internal.AdviceEvents.Binding;
+import com.github.advisedtesting.core.internal.AdviceEvents.LookupSpan;
+import com.github.advisedtesting.core.internal.AdviceEvents.Span;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The jdk.jfr backed events behind {@link AdviceEvents}, only loaded, by name, once jdk.jfr is known to be present. Only
+ * compiled on JDK 11 and later, see the jdk11 profile of this module. While no recording enables an event its span is
+ * the shared no-op one, so nothing is allocated.
+ *
+ * @author rex
+ */
+final class JfrAdviceEvents implements Binding {
+
+  private static final String CATEGORY = "Advised Testing";
+
+  private static final EventType ADVICE = EventType.getEventType(AdviceEvent.class);
+  private static final EventType PREPARATION = EventType.getEventType(PreparationEvent.class);
+  private static final EventType TEST = EventType.getEventType(TestEvent.class);
+  private static final EventType TEST_BODY = EventType.getEventType(TestBodyEvent.class);
+  private static final EventType INTERCEPTOR_INSTANTIATION = EventType.getEventType(InterceptorInstantiationEvent.class);
+  private static final EventType OBJECT_FACTORY_LOOKUP = EventType.getEventType(ObjectFactoryLookupEvent.class);
+  private static final EventType OBJECT_FACTORY_BATCH_LOOKUP =
+          EventType.getEventType(ObjectFactoryBatchLookupEvent.class);
+
+  @Override
+  public Span advice(Class<?> annotationType, Class<?> adviceType, String test) {
+    if (!ADVICE.isEnabled()) {
+      return AdviceEvents.NO_SPAN;
+    }
+    AdviceEvent event = new AdviceEvent();
+    event.annotation = annotationType;
+    event.advice = adviceType;
+    event.test = test;
+    return start(event);
+  }
+
+  @Override
+  public Span preparation(Class<?> annotationType, Class<?> adviceType) {
+    if (!PREPARATION.isEnabled()) {
+      return AdviceEvents.NO_SPAN;
+    }
+    PreparationEvent event = new PreparationEvent();
+    event.annotation = annotationType;
+    event.advice = adviceType;
+    return start(event);
+  }
+
+  @Override
+  public Span test(String test) {
+    if (!TEST.isEnabled()) {
+      return AdviceEvents.NO_SPAN;
+    }
+    TestEvent event = new TestEvent();
+    event.test = test;
+    return start(event);
+  }
+
+  @Override
+  public Span testBody(String test) {
+    if (!TEST_BODY.isEnabled()) {
+      return AdviceEvents.NO_SPAN;
+    }
+    TestBodyEvent event = new TestBodyEvent();
+    event.test = test;
+    return start(event);
+  }
+
+  @Override
+  public Span interceptorInstantiation(Class<?> interceptorType) {
+    if (!INTERCEPTOR_INSTANTIATION.isEnabled()) {
+      return AdviceEvents.NO_SPAN;
+    }
+    InterceptorInstantiationEvent event = new InterceptorInstantiationEvent();
+    event.interceptor = interceptorType;
+    return start(event);
+  }
+
+  @Override
+  public LookupSpan objectFactoryLookup(Class<?> type) {
+    if (!OBJECT_FACTORY_LOOKUP.isEnabled()) {
+      return AdviceEvents.NO_LOOKUP_SPAN;
+    }
+    ObjectFactoryLookupEvent event = new ObjectFactoryLookupEvent();
+    event.type = type;
+    event.begin();
+    return found -> {
+      event.end();
+      if (event.shouldCommit()) {
+        event.found = found != null;
+        event.commit();
+      }
+    };
+  }
+
+  @Override
+  public LookupSpan objectFactoryBatchLookup(Class<?> factoryType, int requests) {
+    if (!OBJECT_FACTORY_BATCH_LOOKUP.isEnabled()) {
+      return AdviceEvents.NO_LOOKUP_SPAN;
+    }
+    ObjectFactoryBatchLookupEvent event = new ObjectFactoryBatchLookupEvent();
+    event.factory = factoryType;
+    event.requests = requests;
+    event.begin();
+    return found -> {
+      event.end();
+      if (event.shouldCommit()) {
+        if (found instanceof Object[]) {
+          for (Object object : (Object[]) found) {
+            if (object != null) {
+              event.found++;
+            }
+          }
+        }
+        event.commit();
+      }
+    };
+  }
+
+  private static Span start(Event event) {
+    event.begin();
+    return () -> {
+      event.end();
+      if (event.shouldCommit()) {
+        event.commit();
+      }
+    };
+  }
+
+  @Name("com.github.advisedtesting.Advice")
+  @Label("Advice")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  @Description("An advice around a test, including every advice nested inside it and the test itself")
+  static final class AdviceEvent extends Event {
+    @Label("Annotation")
+    Class<?> annotation;
+    @Label("Advice")
+    Class<?> advice;
+    @Label("Test")
+    String test;
+  }
+
+  @Name("com.github.advisedtesting.AdvicePreparation")
+  @Label("Advice Preparation")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  @Description("Independent work done by an advice before the advice chain runs")
+  static final class PreparationEvent extends Event {
+    @Label("Annotation")
+    Class<?> annotation;
+    @Label("Advice")
+    Class<?> advice;
+  }
+
+  @Name("com.github.advisedtesting.Test")
+  @Label("Test")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  @Description("A whole test, including it's advices")
+  static final class TestEvent extends Event {
+    @Label("Test")
+    String test;
+  }
+
+  @Name("com.github.advisedtesting.TestBody")
+  @Label("Test Body")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  @Description("A test's body, including befores, afters and rules")
+  static final class TestBodyEvent extends Event {
+    @Label("Test")
+    String test;
+  }
+
+  @Name("com.github.advisedtesting.InterceptorInstantiation")
+  @Label("Interceptor Instantiation")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  static final class InterceptorInstantiationEvent extends Event {
+    @Label("Interceptor")
+    Class<?> interceptor;
+  }
+
+  @Name("com.github.advisedtesting.ObjectFactoryLookup")
+  @Label("Object Factory Lookup")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  @Description("Resolution of a test parameter from the registered object factories")
+  static final class ObjectFactoryLookupEvent extends Event {
+    @Label("Type")
+    Class<?> type;
+    @Label("Found")
+    boolean found;
+  }
+
+  @Name("com.github.advisedtesting.ObjectFactoryBatchLookup")
+  @Label("Object Factory Batch Lookup")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  @Description("Resolution of several test parameters from a single object factory")
+  static final class ObjectFactoryBatchLookupEvent extends Event {
+    @Label("Factory")
+    Class<?> factory;
+    @Label("Requests")
+    int requests;
+    @Label("Found")
+    int found;
+  }
+
+}
@@ -30,12 +30,21 @@ import java.lang.annotation.Documented;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.junit.Test;
 
+import com.github.advisedtesting.core.internal.DeferredObjectFactory;
+import com.github.advisedtesting.core.internal.LazyObjectFactory;
 import com.github.advisedtesting.core.internal.ProviderAwareObjectFactoryAggregate;
 import com.github.advisedtesting.core.internal.SimpleObjectFactory;
 
@@ -87,6 +96,247 @@ public class ProviderAwareObjectFactoryAggregatorTests {
     assertThat(aggregator.getObject(rightTypeNoValue, Integer.class)).isEqualTo(1);
     assertThat(aggregator.getObject(rightTypeNoValue, String.class)).isNull();
   }
-  
-  
+
+  @Target({ ElementType.METHOD, ElementType.CONSTRUCTOR, ElementType.FIELD, ElementType.PARAMETER })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface NamedType {
+    /**
+     * example.
+     * @return example.
+     */
+    String name() default "__default";
+
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default MethodInterceptor.class;
+  }
+
+  @Test
+  public void namedContextsFirstRegisteredWinsTest() throws AnnotationFormatException {
+    Map<String, Object> first = new HashMap<>();
+    first.put("value", "first");
+    Map<String, Object> second = new HashMap<>();
+    second.put("value", "second");
+    Map<String, Object> bobName = new HashMap<>();
+    bobName.put("name", "bob");
+    Map<String, Object> tedName = new HashMap<>();
+    tedName.put("name", "ted");
+    NamedType bob = TypeFactory.annotation(NamedType.class, bobName);
+    NamedType ted = TypeFactory.annotation(NamedType.class, tedName);
+    NamedType unnamed = TypeFactory.annotation(NamedType.class, new HashMap<String, Object>());
+    ProviderAwareObjectFactoryAggregate aggregator = new ProviderAwareObjectFactoryAggregate();
+    aggregator.register(bob, new SimpleObjectFactory(first));
+    aggregator.register(ted, new SimpleObjectFactory(second));
+    assertThat(aggregator.getObject(bob, String.class)).isEqualTo("first");
+    assertThat(aggregator.getObject(ted, String.class)).isEqualTo("second");
+    assertThat(aggregator.getObject(unnamed, String.class)).isEqualTo("first");
+    assertThat(aggregator.getObject(ted, "value", String.class)).isEqualTo("second");
+    assertThat(aggregator.getObject(String.class)).isEqualTo("first");
+    RightType rightType = TypeFactory.annotation(RightType.class, new HashMap<String, Object>());
+    assertThat(aggregator.getObject(rightType, String.class)).isNull();
+  }
+
+  public void resolvable(@NamedType(name = "ted") String fromTed, @NamedType(name = "bob") String fromBob,
+          Integer fromAny) {
+  }
+
+  @Test
+  public void argumentsForReplayedPlanTest() throws AnnotationFormatException, NoSuchMethodException {
+    Map<String, Object> first = new HashMap<>();
+    first.put("value", "first");
+    first.put("int", 1);
+    Map<String, Object> second = new HashMap<>();
+    second.put("value", "second");
+    Map<String, Object> bobName = new HashMap<>();
+    bobName.put("name", "bob");
+    Map<String, Object> tedName = new HashMap<>();
+    tedName.put("name", "ted");
+    NamedType bob = TypeFactory.annotation(NamedType.class, bobName);
+    NamedType ted = TypeFactory.annotation(NamedType.class, tedName);
+    Method method = getClass().getMethod("resolvable", String.class, String.class, Integer.class);
+
+    ProviderAwareObjectFactoryAggregate aggregator = new ProviderAwareObjectFactoryAggregate();
+    aggregator.register(bob, new SimpleObjectFactory(first));
+    aggregator.register(ted, new SimpleObjectFactory(second));
+    assertThat(aggregator.getArgumentsFor(method)).containsExactly("second", "first", 1);
+    assertThat(aggregator.getArgumentsFor(method)).containsExactly("second", "first", 1);
+
+    ProviderAwareObjectFactoryAggregate tedOnly = new ProviderAwareObjectFactoryAggregate();
+    tedOnly.register(ted, new SimpleObjectFactory(second));
+    assertThat(tedOnly.getArgumentsFor(method)).containsExactly("second", "second", null);
+  }
+
+  public void lazy(@NamedType(name = "bob") Supplier<String> fromBob, Supplier<List<String>> list) {
+  }
+
+  @Test
+  public void lazySupplierArgumentsTest() throws AnnotationFormatException, NoSuchMethodException {
+    Map<String, Object> contents = new HashMap<>();
+    contents.put("value", "built");
+    contents.put("list", Collections.singletonList("item"));
+    Map<String, Object> bobName = new HashMap<>();
+    bobName.put("name", "bob");
+    NamedType bob = TypeFactory.annotation(NamedType.class, bobName);
+    AtomicInteger builds = new AtomicInteger();
+    LazyObjectFactory lazyFactory = new LazyObjectFactory(() -> {
+      builds.incrementAndGet();
+      return new SimpleObjectFactory(contents);
+    });
+    ProviderAwareObjectFactoryAggregate aggregator = new ProviderAwareObjectFactoryAggregate();
+    aggregator.register(bob, lazyFactory);
+
+    Object[] arguments = aggregator.getArgumentsFor(getClass().getMethod("lazy", Supplier.class, Supplier.class));
+    assertThat(lazyFactory.isBuilt()).isFalse();
+    assertThat(((Supplier<?>) arguments[0]).get()).isEqualTo("built");
+    assertThat(((Supplier<?>) arguments[1]).get()).isEqualTo(Collections.singletonList("item"));
+    assertThat(((Supplier<?>) arguments[0]).get()).isEqualTo("built");
+    assertThat(builds.get()).isEqualTo(1);
+    assertThat(lazyFactory.isBuilt()).isTrue();
+  }
+
+  @Test
+  public void registeredSupplierArgumentsTest() throws AnnotationFormatException, NoSuchMethodException {
+    Supplier<String> registered = () -> "registered";
+    Map<String, Object> contents = new HashMap<>();
+    contents.put("value", "built");
+    contents.put("supplier", registered);
+    Map<String, Object> bobName = new HashMap<>();
+    bobName.put("name", "bob");
+    NamedType bob = TypeFactory.annotation(NamedType.class, bobName);
+    ProviderAwareObjectFactoryAggregate aggregator = new ProviderAwareObjectFactoryAggregate();
+    aggregator.register(bob, new SimpleObjectFactory(contents));
+
+    Object[] arguments = aggregator.getArgumentsFor(getClass().getMethod("lazy", Supplier.class, Supplier.class));
+    assertThat(arguments[0]).isSameAs(registered);
+    assertThat(arguments[1]).isSameAs(registered);
+  }
+
+  public void batched(@NamedType(name = "bob") String value, @NamedType(name = "bob") Integer number,
+          @NamedType(name = "bob") Long missing) {
+  }
+
+  @Test
+  public void argumentsBatchedPerContextTest() throws AnnotationFormatException, NoSuchMethodException {
+    Map<String, Object> contents = new HashMap<>();
+    contents.put("value", "bob's");
+    contents.put("int", 1);
+    Map<String, Object> fallbackContents = new HashMap<>();
+    fallbackContents.put("long", 2L);
+    Map<String, Object> bobName = new HashMap<>();
+    bobName.put("name", "bob");
+    NamedType bob = TypeFactory.annotation(NamedType.class, bobName);
+    RightType other = TypeFactory.annotation(RightType.class, new HashMap<String, Object>());
+    List<Integer> batchSizes = new ArrayList<>();
+    ObjectFactory counting = new SimpleObjectFactory(contents) {
+      @Override
+      public Object[] getObjects(ObjectRequest... requests) {
+        batchSizes.add(requests.length);
+        return super.getObjects(requests);
+      }
+    };
+    ProviderAwareObjectFactoryAggregate aggregator = new ProviderAwareObjectFactoryAggregate();
+    aggregator.register(bob, counting);
+    aggregator.register(other, new SimpleObjectFactory(fallbackContents));
+    Object[] arguments = aggregator.getArgumentsFor(getClass().getMethod("batched", String.class, Integer.class,
+            Long.class));
+    assertThat(arguments).containsExactly("bob's", 1, 2L);
+    assertThat(batchSizes).containsExactly(3);
+  }
+
+  @Test
+  public void answeringContextRememberedUntilRegisterTest() throws AnnotationFormatException {
+    Map<String, Object> firstContents = new HashMap<>();
+    firstContents.put("long", 2L);
+    Map<String, Object> secondContents = new HashMap<>();
+    secondContents.put("value", "second");
+    AtomicInteger scans = new AtomicInteger();
+    ObjectFactory counting = new SimpleObjectFactory(firstContents) {
+      @Override
+      public <T> T getObject(Class<T> type) {
+        scans.incrementAndGet();
+        return super.getObject(type);
+      }
+    };
+    RightType right = TypeFactory.annotation(RightType.class, new HashMap<String, Object>());
+    NamedType named = TypeFactory.annotation(NamedType.class, new HashMap<String, Object>());
+    ProviderAwareObjectFactoryAggregate aggregator = new ProviderAwareObjectFactoryAggregate();
+    aggregator.register(right, counting);
+    aggregator.register(named, new SimpleObjectFactory(secondContents));
+    assertThat(aggregator.getObject(String.class)).isEqualTo("second");
+    assertThat(aggregator.getObject(String.class)).isEqualTo("second");
+    assertThat(scans.get()).isEqualTo(1);
+    // misses are not remembered, and a register drops what was.
+    assertThat(aggregator.getObject(Integer.class)).isNull();
+    assertThat(aggregator.getObject(Integer.class)).isNull();
+    assertThat(scans.get()).isEqualTo(3);
+    aggregator.register(TypeFactory.annotation(OtherType.class, new HashMap<String, Object>()), new SimpleObjectFactory());
+    assertThat(aggregator.getObject(String.class)).isEqualTo("second");
+    assertThat(scans.get()).isEqualTo(4);
+  }
+
+  @Target({ ElementType.METHOD, ElementType.CONSTRUCTOR, ElementType.FIELD, ElementType.PARAMETER })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface OtherType {
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default MethodInterceptor.class;
+  }
+
+  @Test
+  public void prototypesStayPrototypesTest() throws AnnotationFormatException {
+    ObjectFactory prototypes = new SimpleObjectFactory() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public <T> T getObject(Class<T> type) {
+        return type == Object.class ? (T) new Object() : null;
+      }
+    };
+    ProviderAwareObjectFactoryAggregate aggregator = new ProviderAwareObjectFactoryAggregate();
+    aggregator.register(TypeFactory.annotation(RightType.class, new HashMap<String, Object>()), prototypes);
+    assertThat(aggregator.getObject(Object.class)).isNotNull().isNotSameAs(aggregator.getObject(Object.class));
+  }
+
+  @Test
+  public void deferredContextFilledInLaterStillWinsTest() throws AnnotationFormatException {
+    SimpleObjectFactory filledInLater = new SimpleObjectFactory();
+    Map<String, Object> secondContents = new HashMap<>();
+    secondContents.put("value", "second");
+    ProviderAwareObjectFactoryAggregate aggregator = new ProviderAwareObjectFactoryAggregate();
+    aggregator.register(TypeFactory.annotation(RightType.class, new HashMap<String, Object>()),
+            new DeferredObjectFactory(CompletableFuture.completedFuture(filledInLater)));
+    aggregator.register(TypeFactory.annotation(NamedType.class, new HashMap<String, Object>()),
+            new SimpleObjectFactory(secondContents));
+    assertThat(aggregator.getObject(String.class)).isEqualTo("second");
+    filledInLater.add("value", "first");
+    assertThat(aggregator.getObject(String.class)).isEqualTo("first");
+  }
+
+  @Test
+  public void parentContextsFollowOwnTest() throws AnnotationFormatException {
+    Map<String, Object> classContents = new HashMap<>();
+    classContents.put("value", "class");
+    classContents.put("long", 2L);
+    Map<String, Object> methodContents = new HashMap<>();
+    methodContents.put("value", "method");
+    Map<String, Object> bobName = new HashMap<>();
+    bobName.put("name", "bob");
+    NamedType bob = TypeFactory.annotation(NamedType.class, bobName);
+    RightType other = TypeFactory.annotation(RightType.class, new HashMap<String, Object>());
+    ProviderAwareObjectFactoryAggregate parent = new ProviderAwareObjectFactoryAggregate();
+    parent.register(bob, new SimpleObjectFactory(classContents));
+    ProviderAwareObjectFactoryAggregate aggregator = new ProviderAwareObjectFactoryAggregate(parent);
+    assertThat(aggregator.getObject(bob, "value", String.class)).isEqualTo("class");
+    aggregator.register(other, new SimpleObjectFactory(methodContents));
+    assertThat(aggregator.getObject(String.class)).isEqualTo("method");
+    assertThat(aggregator.getObject(Long.class)).isEqualTo(2L);
+    assertThat(aggregator.getObject(bob, "value", String.class)).isEqualTo("class");
+    assertThat(parent.getObject(other, String.class)).isNull();
+  }
+
 }
@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.Test;
+
+import com.github.advisedtesting.core.internal.ProviderAwareObjectFactoryAggregate;
+import com.github.advisedtesting.core.internal.SimpleObjectFactory;
+
+import io.leangen.geantyref.TypeFactory;
+
+public class ProviderAwareObjectFactoryConcurrencyTests {
+
+  private static final int THREADS = 8;
+  private static final int REGISTRATIONS_PER_THREAD = 200;
+
+  @Target({ ElementType.METHOD, ElementType.CONSTRUCTOR, ElementType.FIELD, ElementType.PARAMETER })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface NamedType {
+    /**
+     * example.
+     * @return example.
+     */
+    String name() default "__default";
+
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default MethodInterceptor.class;
+  }
+
+  private static NamedType named(String name) throws Exception {
+    Map<String, Object> values = new HashMap<>();
+    values.put("name", name);
+    return TypeFactory.annotation(NamedType.class, values);
+  }
+
+  private static SimpleObjectFactory holding(String value) {
+    SimpleObjectFactory factory = new SimpleObjectFactory();
+    factory.add("value", value);
+    return factory;
+  }
+
+  @Test
+  public void concurrentRegistrationTest() throws Exception {
+    ProviderAwareObjectFactoryAggregate aggregate = new ProviderAwareObjectFactoryAggregate();
+    NamedType first = named("first");
+    aggregate.register(first, holding("first"));
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS * 2);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < THREADS; thread++) {
+        final int threadId = thread;
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < REGISTRATIONS_PER_THREAD; i++) {
+            String name = threadId + "-" + i;
+            aggregate.register(named(name), holding(name));
+          }
+          return null;
+        }));
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < REGISTRATIONS_PER_THREAD; i++) {
+            // the first registration always wins, whatever is registered concurrently.
+            assertThat(aggregate.getObject(String.class)).isEqualTo("first");
+            assertThat(aggregate.getObject(named("__default"), String.class)).isEqualTo("first");
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    for (int thread = 0; thread < THREADS; thread++) {
+      for (int i = 0; i < REGISTRATIONS_PER_THREAD; i++) {
+        String name = thread + "-" + i;
+        assertThat(aggregate.getObject(named(name), String.class)).isEqualTo(name);
+      }
+    }
+    assertThat(aggregate.getObject(first, String.class)).isEqualTo("first");
+  }
+
+}
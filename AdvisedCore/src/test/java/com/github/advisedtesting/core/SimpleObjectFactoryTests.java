@@ -63,4 +63,29 @@ public class SimpleObjectFactoryTests {
     assertThat(factory.getObject(Class.class)).isNull();
     assertThat(factory.getObject(Integer.class)).isEqualTo(1);
   }
+
+  @Test
+  public void indexRefreshedOnAddTest() {
+    SimpleObjectFactory factory = new SimpleObjectFactory();
+    factory.add("int", 1);
+    assertThat(factory.getObject(Integer.class)).isEqualTo(1);
+    assertThat(factory.getAllObjects(Number.class)).hasSize(1);
+    factory.add("long", 2L);
+    assertThat(factory.getAllObjects(Number.class)).containsOnlyKeys("int", "long");
+    assertThat(factory.getObject(Long.class)).isEqualTo(2L);
+    assertThat(factory.getObject("long", Number.class)).isEqualTo(2L);
+    assertThat(factory.getObject("long", Integer.class)).isNull();
+    factory.add("nothing", null);
+    assertThat(factory.getAllObjects(Object.class)).hasSize(2);
+  }
+
+  @Test
+  public void allObjectsAreACopyTest() {
+    SimpleObjectFactory factory = new SimpleObjectFactory();
+    factory.add("int", 1);
+    Map<String, Number> numbers = factory.getAllObjects(Number.class);
+    numbers.put("long", 2L);
+    assertThat(factory.getAllObjects(Number.class)).containsOnlyKeys("int");
+    assertThat(factory.getObject(Long.class)).isNull();
+  }
 }
@@ -25,25 +25,36 @@ package com.github.advisedtesting.core;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Documented;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
+import java.lang.reflect.Field;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
+import org.junit.Rule;
 import org.junit.Test;
 
+import com.github.advisedtesting.core.internal.ScopedInterceptors;
+import com.github.advisedtesting.core.internal.StaticStateRule;
 import com.github.advisedtesting.core.internal.TestContext;
 
 import io.leangen.geantyref.AnnotationFormatException;
 import io.leangen.geantyref.TypeFactory;
 
 public class TestContextTests {
+
+  @Rule
+  public final StaticStateRule staticState = new StaticStateRule();
   
   @Target({ ElementType.METHOD, ElementType.CONSTRUCTOR, ElementType.FIELD, ElementType.PARAMETER })
   @Retention(RUNTIME)
@@ -56,6 +67,23 @@ public class TestContextTests {
     Class<? extends MethodInterceptor> implementedBy() default MethodInterceptor.class;
   }
   
+  @Target({ ElementType.METHOD, ElementType.CONSTRUCTOR, ElementType.FIELD, ElementType.PARAMETER })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface ScopedType {
+    /**
+     * example.
+     * @return example.
+     */
+    AdviceScope scope() default AdviceScope.TEST;
+
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default CloseableMethodItercepticator.class;
+  }
+
   public static class MethodItercepticator implements MethodInterceptor {
     @Override
     public Object invoke(MethodInvocation invocation) throws Throwable {
@@ -128,4 +156,100 @@ public class TestContextTests {
             context.getAdviceFor(closeableAnnotation, Thread.currentThread().getContextClassLoader());
     context.close();
   }
+
+  @Test
+  public void evictionTest() throws Exception {
+    TestContext context = new TestContext();
+    // a loader of its own, so only this test's interceptor is evicted.
+    ClassLoader loader = new ThrowawayClassLoader(CloseableMethodItercepticator.class);
+    RightType closeableAnnotation = TypeFactory.annotation(RightType.class,
+            mapOf("implementedBy", CloseableMethodItercepticator.class));
+    MethodInterceptor first = context.getAdviceFor(closeableAnnotation, loader);
+    assertThat(first.getClass().getClassLoader()).isSameAs(loader);
+    assertThat(context.getLiveInterceptorCount()).isGreaterThanOrEqualTo(1);
+    long evicted = context.getEvictedInterceptorCount();
+    assertThat(context.evict(loader)).isEqualTo(1);
+    assertThat(isClosed(first)).isTrue();
+    assertThat(context.getEvictedInterceptorCount()).isGreaterThan(evicted);
+    MethodInterceptor second = context.getAdviceFor(closeableAnnotation, loader);
+    assertThat(second).isNotNull().isNotSameAs(first);
+    assertThat(context.evict(loader)).isEqualTo(1);
+  }
+
+  private static boolean isClosed(MethodInterceptor interceptor) throws ReflectiveOperationException {
+    Field closed = interceptor.getClass().getDeclaredField("closed");
+    closed.setAccessible(true);
+    return closed.getBoolean(interceptor);
+  }
+
+  /**
+   * Defines the given classes itself rather than delegating to its parent.
+   */
+  private static final class ThrowawayClassLoader extends ClassLoader {
+
+    private final Set<String> names = new HashSet<>();
+
+    private ThrowawayClassLoader(Class<?>... types) {
+      super(TestContextTests.class.getClassLoader());
+      for (Class<?> type : types) {
+        names.add(type.getName());
+      }
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!names.contains(name)) {
+        return super.loadClass(name, resolve);
+      }
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> loaded = findLoadedClass(name);
+        if (loaded == null) {
+          byte[] bytes = read(name.replace('.', '/') + ".class");
+          loaded = defineClass(name, bytes, 0, bytes.length);
+        }
+        return loaded;
+      }
+    }
+
+    private byte[] read(String resource) throws ClassNotFoundException {
+      try (InputStream input = getParent().getResourceAsStream(resource)) {
+        if (input == null) {
+          throw new ClassNotFoundException(resource);
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read = input.read(buffer); read != -1; read = input.read(buffer)) {
+          output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+      } catch (IOException ex) {
+        throw new ClassNotFoundException(resource, ex);
+      }
+    }
+  }
+
+  @Test
+  public void scopedTest() throws AnnotationFormatException {
+    TestContext context = new TestContext();
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    ScopedType perTest = TypeFactory.annotation(ScopedType.class, new HashMap<>());
+    ScopedType perClass = TypeFactory.annotation(ScopedType.class, mapOf("scope", AdviceScope.TEST_CLASS));
+    ScopedInterceptors classScope = new ScopedInterceptors(AdviceScope.TEST_CLASS, null);
+    ScopedInterceptors firstTest = new ScopedInterceptors(AdviceScope.TEST, classScope);
+    ScopedInterceptors secondTest = new ScopedInterceptors(AdviceScope.TEST, classScope);
+
+    CloseableMethodItercepticator first = (CloseableMethodItercepticator) context.getAdviceFor(perTest, loader, firstTest);
+    assertThat(context.getAdviceFor(perTest, loader, firstTest)).isSameAs(first);
+    assertThat(context.getAdviceFor(perTest, loader, secondTest)).isNotSameAs(first);
+    MethodInterceptor shared = context.getAdviceFor(perClass, loader, firstTest);
+    assertThat(context.getAdviceFor(perClass, loader, secondTest)).isSameAs(shared).isNotSameAs(first);
+    firstTest.close();
+    assertThat(first.closed).isTrue();
+    assertThat(((CloseableMethodItercepticator) shared).closed).isFalse();
+    classScope.close();
+    assertThat(((CloseableMethodItercepticator) shared).closed).isTrue();
+    // without an open scope the advice is a singleton.
+    assertThat(context.getAdviceFor(perTest, loader)).isSameAs(context.getAdviceFor(perTest, loader, null));
+    context.close();
+  }
 }
@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.List;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.Test;
+
+public class AnnotationAttributesTest {
+
+  @Target({ ElementType.METHOD, ElementType.CONSTRUCTOR, ElementType.FIELD, ElementType.PARAMETER })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface Named {
+    /**
+     * example.
+     * @return example.
+     */
+    String name() default "__default";
+
+    /**
+     * example.
+     * @return example.
+     */
+    String instance() default "__default";
+
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default MethodItercepticator.class;
+  }
+
+  @Target({ ElementType.METHOD, ElementType.CONSTRUCTOR, ElementType.FIELD, ElementType.PARAMETER })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface NamedContainer {
+    /**
+     * example.
+     * @return example.
+     */
+    Named[] value();
+  }
+
+  public static class MethodItercepticator implements MethodInterceptor {
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      return invocation.proceed();
+    }
+  }
+
+  @Named(name = "first", instance = "one")
+  @NamedContainer({ @Named(name = "second"), @Named(name = "third") })
+  public void annotated() {
+  }
+
+  @Named(name = "first")
+  @NamedContainer({ @Named(name = "first"), @Named(name = "second"), @Named(name = "first", instance = "other") })
+  public void duplicated() {
+  }
+
+  @Test
+  public void testAttributeAccess() throws NoSuchMethodException {
+    Named named = getClass().getMethod("annotated").getAnnotation(Named.class);
+    AnnotationAttributes attributes = AnnotationAttributes.of(named);
+    assertThat(attributes).isSameAs(AnnotationAttributes.of(Named.class));
+    assertThat(attributes.getName(named)).isEqualTo("first");
+    assertThat(attributes.getInstance(named)).isEqualTo("one");
+    assertThat(attributes.getImplementedBy(named)).isEqualTo(MethodItercepticator.class);
+    assertThat(attributes.getValue(named, "name", CharSequence.class)).isEqualTo("first");
+    assertThat(attributes.getValue(named, "name", Integer.class)).isNull();
+    assertThat(attributes.getValue(named, "missing", String.class)).isNull();
+    assertThat(attributes.getNestedAnnotations(named)).isEmpty();
+  }
+
+  @Test
+  public void testNestedAndChain() throws NoSuchMethodException {
+    NamedContainer container = getClass().getMethod("annotated").getAnnotation(NamedContainer.class);
+    assertThat(AnnotationAttributes.of(container).getNestedAnnotations(container)).hasSize(2);
+    assertThat(AnnotationAttributes.of(container).getImplementedBy(container)).isNull();
+
+    List<Annotation> chain = AdviceAnnotationEvaluator.adviceChain(getClass().getMethod("annotated"));
+    assertThat(chain).hasSize(3);
+    assertThat(chain).extracting(AdviceAnnotationEvaluator::getNameIfPresent).containsExactly("first", "second", "third");
+    assertThat(AdviceAnnotationEvaluator.adviceChain(getClass().getMethod("annotated"))).isSameAs(chain);
+  }
+
+  @Test
+  public void testEquivalentAdviceMerged() throws NoSuchMethodException {
+    List<Annotation> chain = AdviceAnnotationEvaluator.adviceChain(getClass().getMethod("duplicated"));
+    assertThat(chain).extracting(AdviceAnnotationEvaluator::getNameIfPresent).containsExactly("first", "second", "first");
+    assertThat(chain).extracting(AdviceAnnotationEvaluator::getInstanceIfPresent).containsExactly(null, null, "other");
+    assertThat(AdviceAnnotationEvaluator.inspect(getClass().getMethod("duplicated").getAnnotations())).hasSize(4);
+  }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.advisedtesting.core.internal.MethodHandleInvoker.BoundMethod;
+
+public class MethodHandleInvokerTest {
+
+  public static class Target {
+
+    private final List<String> calls = new ArrayList<>();
+
+    public String join(String first, Integer second) {
+      calls.add("join");
+      return first + second;
+    }
+
+    public long add(int first, long second) {
+      return first + second;
+    }
+
+    public void fail() throws Exception {
+      throw new Exception("unwrapped");
+    }
+
+    public static String constant() {
+      return "constant";
+    }
+  }
+
+  @Test
+  public void testConstructAndInvoke() throws Throwable {
+    MethodHandleInvoker invoker = MethodHandleInvoker.of(Target.class);
+    assertThat(MethodHandleInvoker.of(Target.class)).isSameAs(invoker);
+    Target target = (Target) invoker.newInstance();
+    BoundMethod join = invoker.method("join", Arrays.asList(String.class.getName(), Integer.class.getName()));
+    assertThat(join.invoke(target, new Object[] { "a", 1 })).isEqualTo("a1");
+    assertThat(target.calls).containsExactly("join");
+    assertThat(MethodHandleInvoker.bind(join.getMethod())).isSameAs(join);
+    BoundMethod constant = invoker.method("constant", Collections.emptyList());
+    assertThat(constant.invoke(null, new Object[] {})).isEqualTo("constant");
+  }
+
+  @Test
+  public void testPrimitiveParameters() throws Throwable {
+    MethodHandleInvoker invoker = MethodHandleInvoker.of(Target.class);
+    BoundMethod bound = MethodHandleInvoker.bind(Target.class.getMethod("add", int.class, long.class));
+    assertThat(bound.invoke(invoker.newInstance(), new Object[] { 1, 2L })).isEqualTo(3L);
+    assertThat(invoker.method("add", Arrays.asList(int.class.getName(), long.class.getName()))).isSameAs(bound);
+  }
+
+  @Test
+  public void testExceptionsAreNotWrapped() throws Throwable {
+    MethodHandleInvoker invoker = MethodHandleInvoker.of(Target.class);
+    try {
+      invoker.method("fail", Collections.emptyList()).invoke(invoker.newInstance(), new Object[] {});
+      fail("expected the method's exception");
+    } catch (Exception ex) {
+      assertThat(ex.getMessage()).isEqualTo("unwrapped");
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingMethod() {
+    MethodHandleInvoker.of(Target.class).method("missing", Collections.emptyList());
+  }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ParallelCloserTest {
+
+  @Test
+  public void closesConcurrently() {
+    CountDownLatch bothClosing = new CountDownLatch(2);
+    ParallelCloser closer = new ParallelCloser();
+    closer.add("first", () -> await(bothClosing));
+    closer.add("second", () -> await(bothClosing));
+    closer.add("failing", () -> {
+      throw new IOException("expected");
+    });
+    assertThat(closer.close(10_000, 10_000)).isEmpty();
+    assertThat(bothClosing.getCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void hangingCloseAbandoned() {
+    CountDownLatch never = new CountDownLatch(1);
+    ParallelCloser closer = new ParallelCloser();
+    closer.add("hanging", () -> waitFor(never));
+    closer.add("quick", () -> { });
+    long start = System.nanoTime();
+    assertThat(closer.close(10_000, 200)).containsExactly("hanging");
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5_000L);
+  }
+
+  private static void await(CountDownLatch latch) throws IOException {
+    latch.countDown();
+    waitFor(latch);
+  }
+
+  private static void waitFor(CountDownLatch latch) throws IOException {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      throw new IOException(ex);
+    }
+  }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.Test;
+
+import com.github.advisedtesting.core.ResourceCost;
+import com.github.advisedtesting.core.internal.ResourceBudget.Cost;
+import com.github.advisedtesting.core.internal.ResourceBudget.Lease;
+
+public class ResourceBudgetTest {
+
+  @Target({ ElementType.TYPE, ElementType.METHOD })
+  @Retention(RUNTIME)
+  @Documented
+  @ResourceCost(cpu = 3, memoryMb = 256)
+  public @interface ExpensiveAdvice {
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default PassThrough.class;
+  }
+
+  public static class PassThrough implements MethodInterceptor {
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      return invocation.proceed();
+    }
+  }
+
+  @ResourceCost(cpu = 2)
+  public static class Declared {
+
+    public void inherited() {
+    }
+
+    @ResourceCost(cpu = 1, memoryMb = 100)
+    public void own() {
+    }
+  }
+
+  @ExpensiveAdvice
+  public static class AdvisedClass {
+
+    public void plain() {
+    }
+  }
+
+  @ExpensiveAdvice
+  public void advised() {
+  }
+
+  public void plain() {
+  }
+
+  @Test
+  public void costs() throws NoSuchMethodException {
+    assertThat(ResourceBudget.costOf(Declared.class, Declared.class.getMethod("inherited")).getCpu()).isEqualTo(2L);
+    Cost own = ResourceBudget.costOf(Declared.class, Declared.class.getMethod("own"));
+    assertThat(own.getCpu()).isEqualTo(1L);
+    assertThat(own.getMemoryMb()).isEqualTo(100L);
+    Cost advised = ResourceBudget.costOf(getClass(), getClass().getMethod("advised"));
+    assertThat(advised.getCpu()).isEqualTo(3L);
+    assertThat(advised.getMemoryMb()).isEqualTo(256L);
+    assertThat(ResourceBudget.costOf(getClass(), getClass().getMethod("plain")).getCpu()).isEqualTo(1L);
+    assertThat(ResourceBudget.costOf(getClass(), getClass().getMethod("plain")))
+            .isSameAs(ResourceBudget.costOf(getClass(), getClass().getMethod("plain")));
+  }
+
+  @Test
+  public void classAdviceCostsTheClass() throws NoSuchMethodException {
+    assertThat(ResourceBudget.costOf(AdvisedClass.class, AdvisedClass.class.getMethod("plain")).getCpu()).isEqualTo(1L);
+    Cost reserved = ResourceBudget.classCostOf(AdvisedClass.class);
+    assertThat(reserved.getCpu()).isEqualTo(3L);
+    assertThat(reserved.getMemoryMb()).isEqualTo(256L);
+    assertThat(ResourceBudget.classCostOf(Declared.class)).isNull();
+  }
+
+  @Test
+  public void testsAdmittedOnTopOfTheirClassReservation() throws Exception {
+    ResourceBudget budget = new ResourceBudget(2, 0);
+    try (Lease reserved = budget.reserve(new Cost(1, 0))) {
+      try (Lease test = budget.acquire(new Cost(1, 0))) {
+        assertThat(budget.getUsedCpu()).isEqualTo(2L);
+      }
+      assertThat(budget.getUsedCpu()).isEqualTo(1L);
+    }
+    assertThat(budget.getUsedCpu()).isEqualTo(0L);
+  }
+
+  @Test
+  public void testsAdmittedWithinTheirClassReservation() throws Exception {
+    ResourceBudget budget = new ResourceBudget(2, 0);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    ExecutorService other = Executors.newSingleThreadExecutor();
+    try (Lease reserved = budget.reserve(new Cost(4, 0))) {
+      assertThat(budget.getUsedCpu()).isEqualTo(2L);
+      // on another thread, as the tests of a parallel class are, with class and test costs over the budget.
+      Lease test = executor.submit(() -> budget.acquire(new Cost(1, 0), reserved)).get(10, TimeUnit.SECONDS);
+      assertThat(budget.getUsedCpu()).isEqualTo(3L);
+      Future<Lease> unrelated = other.submit(() -> budget.acquire(new Cost(1, 0)));
+      Thread.sleep(100);
+      assertThat(unrelated.isDone()).isFalse();
+      test.close();
+      reserved.close();
+      unrelated.get(10, TimeUnit.SECONDS).close();
+    } finally {
+      executor.shutdownNow();
+      other.shutdownNow();
+    }
+    assertThat(budget.getUsedCpu()).isEqualTo(0L);
+  }
+
+  @Test
+  public void givenBackWhileBlocked() throws Exception {
+    ResourceBudget budget = new ResourceBudget(1, 0);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (Lease lease = budget.acquire(new Cost(1, 0))) {
+      String result = budget.whileBlocked(() -> {
+        assertThat(budget.getUsedCpu()).isEqualTo(0L);
+        try {
+          executor.submit(() -> {
+            budget.acquire(new Cost(1, 0)).close();
+            return null;
+          }).get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException ex) {
+          throw new IllegalStateException(ex);
+        }
+        return "unblocked";
+      });
+      assertThat(result).isEqualTo("unblocked");
+      assertThat(budget.getUsedCpu()).isEqualTo(1L);
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(budget.getUsedCpu()).isEqualTo(0L);
+  }
+
+  @Test
+  public void admitsWithinBudget() throws Exception {
+    ResourceBudget budget = new ResourceBudget(2, 100);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Lease first = budget.acquire(new Cost(1, 60));
+      // nested on the same thread, runs on the outer budget.
+      try (Lease nested = budget.acquire(new Cost(2, 100))) {
+        assertThat(budget.getUsedCpu()).isEqualTo(1L);
+      }
+      Future<Lease> second = executor.submit(() -> budget.acquire(new Cost(1, 60)));
+      Thread.sleep(100);
+      assertThat(second.isDone()).isFalse();
+      first.close();
+      first.close();
+      Lease secondLease = second.get(10, TimeUnit.SECONDS);
+      assertThat(budget.getUsedMemoryMb()).isEqualTo(60L);
+      executor.submit(secondLease::close).get(10, TimeUnit.SECONDS);
+      // larger than the whole budget, runs alone.
+      try (Lease oversized = budget.acquire(new Cost(10, 1000))) {
+        assertThat(budget.getUsedCpu()).isEqualTo(2L);
+      }
+      assertThat(budget.getUsedCpu()).isEqualTo(0L);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
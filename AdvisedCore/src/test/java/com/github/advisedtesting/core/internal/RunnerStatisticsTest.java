@@ -0,0 +1,123 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import com.github.advisedtesting.core.AdviceListener.Outcome;
+import com.github.advisedtesting.core.AdvisedTestingStatisticsMXBean;
+
+public class RunnerStatisticsTest {
+
+  @Test
+  public void bucketsCoverTheirLowerBounds() {
+    for (long micros : new long[] { 0, 1, 15, 16, 17, 31, 32, 1000, 123_456_789L, Long.MAX_VALUE / 2 }) {
+      int bucket = RunnerStatistics.bucket(micros);
+      assertThat(RunnerStatistics.lowerBound(bucket) <= micros).isTrue();
+      assertThat(RunnerStatistics.lowerBound(bucket + 1) > micros).isTrue();
+    }
+  }
+
+  @Test
+  public void testOutcomesAreCounted() {
+    RunnerStatistics statistics = new RunnerStatistics();
+    long start = System.nanoTime();
+    statistics.testStarted("passes", start);
+    assertThat(statistics.getTestsInFlight()).isEqualTo(1L);
+    statistics.testFinished("passes", start, Outcome.SUCCESS, null);
+    statistics.testStarted("fails", start);
+    statistics.testFinished("fails", start, Outcome.FAILURE, null);
+    statistics.testStarted("skipped", start);
+    statistics.testFinished("skipped", start, Outcome.SKIPPED, null);
+
+    assertThat(statistics.getTestsStarted()).isEqualTo(3L);
+    assertThat(statistics.getTestsFinished()).isEqualTo(3L);
+    assertThat(statistics.getTestsFailed()).isEqualTo(1L);
+    assertThat(statistics.getTestsSkipped()).isEqualTo(1L);
+    assertThat(statistics.getTestsInFlight()).isEqualTo(0L);
+    assertThat(statistics.getTestsFinishedLastMinute()).isEqualTo(3L);
+    assertThat(statistics.getTestLatencyP99Millis() >= statistics.getTestLatencyP50Millis()).isTrue();
+  }
+
+  @Test
+  public void percentilesComeFromTheHistogram() {
+    RunnerStatistics statistics = new RunnerStatistics();
+    assertThat(statistics.getTestLatencyP50Millis()).isEqualTo(0.0);
+    for (int i = 0; i < 99; i++) {
+      long start = System.nanoTime();
+      statistics.testStarted("quick", start);
+      statistics.testFinished("quick", start, Outcome.SUCCESS, null);
+    }
+    // far apart, so a quick test descheduled by the parallel build still lands well below the slow one.
+    long start = System.nanoTime() - TimeUnit.SECONDS.toNanos(10);
+    statistics.testStarted("slow", start);
+    statistics.testFinished("slow", start, Outcome.SUCCESS, null);
+    assertThat(statistics.getTestLatencyP50Millis() < 1000).isTrue();
+    assertThat(statistics.getTestLatencyP99Millis() < 1000).isTrue();
+    assertThat(statistics.percentileMillis(1.0) > 9000).isTrue();
+  }
+
+  @Test
+  public void gaugesFollowTheirResources() {
+    RunnerStatistics statistics = new RunnerStatistics();
+    Object context = new Object();
+    statistics.contextOpened(context);
+    ClassLoader classLoader = new ClassLoader(getClass().getClassLoader()) {
+    };
+    statistics.classLoaderCreated(classLoader);
+    Object capture = new Object();
+    statistics.captureStarted(capture);
+    assertThat(statistics.getOpenContexts()).isEqualTo(1L);
+    assertThat(statistics.getLiveClassLoaders()).isEqualTo(1L);
+    assertThat(statistics.getActiveCaptures()).isEqualTo(1L);
+    statistics.contextClosed(context);
+    statistics.classLoaderDiscarded(classLoader);
+    statistics.captureStopped(capture);
+    assertThat(statistics.getOpenContexts()).isEqualTo(0L);
+    assertThat(statistics.getLiveClassLoaders()).isEqualTo(0L);
+    assertThat(statistics.getActiveCaptures()).isEqualTo(0L);
+  }
+
+  @Test
+  public void registeredOnlyWhenEnabled() throws Exception {
+    ObjectName name = new ObjectName(AdvisedTestingStatisticsMXBean.OBJECT_NAME);
+    RunnerStatistics.register();
+    assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isFalse();
+    System.setProperty(RunnerStatistics.ENABLED_PROPERTY, "true");
+    try {
+      RunnerStatistics.register();
+      Object started = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "TestsStarted");
+      assertThat(started).isEqualTo(RunnerStatistics.get().getTestsStarted());
+    } finally {
+      System.clearProperty(RunnerStatistics.ENABLED_PROPERTY);
+    }
+  }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.github.advisedtesting.core.internal.SharedObjectFactories.Lease;
+
+public class SharedObjectFactoriesTest {
+
+  @Rule
+  public final StaticStateRule staticState = new StaticStateRule();
+
+  private final AtomicInteger builds = new AtomicInteger();
+  private final AtomicInteger closes = new AtomicInteger();
+
+  public class CountingObjectFactory extends SimpleObjectFactory implements Closeable {
+
+    public CountingObjectFactory() {
+      builds.incrementAndGet();
+    }
+
+    @Override
+    public void close() {
+      closes.incrementAndGet();
+    }
+  }
+
+  @After
+  public void closeAll() {
+    System.clearProperty(SharedObjectFactories.IDLE_PROPERTY);
+    SharedObjectFactories.closeAll();
+  }
+
+  @Test
+  public void closedWithItsLastLeaseWhenNoneMayIdle() throws Throwable {
+    System.setProperty(SharedObjectFactories.IDLE_PROPERTY, "0");
+    Lease first = SharedObjectFactories.acquire("fixture", CountingObjectFactory::new);
+    Lease second = SharedObjectFactories.acquire("fixture", CountingObjectFactory::new);
+    assertThat(first.getObjectFactory()).isSameAs(second.getObjectFactory());
+    first.close();
+    assertThat(closes.get()).isEqualTo(0);
+    second.close();
+    assertThat(closes.get()).isEqualTo(1);
+    assertThat(SharedObjectFactories.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void sharedUntilClosed() throws Throwable {
+    Lease first = SharedObjectFactories.acquire("fixture", CountingObjectFactory::new);
+    Lease second = SharedObjectFactories.acquire("fixture", CountingObjectFactory::new);
+    assertThat(first.getObjectFactory()).isSameAs(second.getObjectFactory());
+    assertThat(builds.get()).isEqualTo(1);
+    first.close();
+    first.close();
+    second.close();
+    // idle, but retained for the next consumer.
+    assertThat(closes.get()).isEqualTo(0);
+    Lease third = SharedObjectFactories.acquire("fixture", CountingObjectFactory::new);
+    assertThat(third.getObjectFactory()).isSameAs(second.getObjectFactory());
+    assertThat(builds.get()).isEqualTo(1);
+    SharedObjectFactories.closeAll();
+    assertThat(closes.get()).isEqualTo(1);
+    assertThat(SharedObjectFactories.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void idleFactoriesEvictedEldestFirst() throws Throwable {
+    System.setProperty(SharedObjectFactories.IDLE_PROPERTY, "4");
+    for (int i = 0; i < 6; i++) {
+      SharedObjectFactories.acquire("fixture" + i, CountingObjectFactory::new).close();
+    }
+    assertThat(builds.get()).isEqualTo(6);
+    assertThat(closes.get()).isEqualTo(2);
+    assertThat(SharedObjectFactories.size()).isEqualTo(4);
+    SharedObjectFactories.acquire("fixture5", CountingObjectFactory::new).close();
+    assertThat(builds.get()).isEqualTo(6);
+    SharedObjectFactories.acquire("fixture0", CountingObjectFactory::new).close();
+    assertThat(builds.get()).isEqualTo(7);
+  }
+
+  @Test
+  public void failedBuildRetried() throws Throwable {
+    try {
+      SharedObjectFactories.acquire("failing", () -> {
+        throw new IllegalStateException("no fixture");
+      });
+      fail("expected the build to fail");
+    } catch (IllegalStateException ex) {
+      assertThat(ex.getMessage()).isEqualTo("no fixture");
+    }
+    try (Lease lease = SharedObjectFactories.acquire("failing", CountingObjectFactory::new)) {
+      assertThat(lease.getObjectFactory()).isInstanceOf(CountingObjectFactory.class);
+    }
+  }
+
+}
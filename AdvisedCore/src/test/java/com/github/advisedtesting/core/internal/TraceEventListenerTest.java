@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import com.github.advisedtesting.core.AdviceListener.Outcome;
+
+public class TraceEventListenerTest {
+
+  @Retention(RetentionPolicy.RUNTIME)
+  public @interface Traced {
+  }
+
+  @Traced
+  public void traced() {
+  }
+
+  private Annotation tracedAnnotation() throws NoSuchMethodException {
+    return getClass().getMethod("traced").getAnnotation(Traced.class);
+  }
+
+  @Test
+  public void spansAreWrittenPerThread() throws Exception {
+    TraceEventListener listener = new TraceEventListener();
+    Annotation annotation = tracedAnnotation();
+    listener.testStarted("first \"quoted\"", System.nanoTime());
+    listener.adviceEntered("first \"quoted\"", annotation, null);
+    listener.adviceExited("first \"quoted\"", annotation, null, null);
+    listener.testFinished("first \"quoted\"", 0L, Outcome.SUCCESS, null);
+
+    Thread other = new Thread(() -> {
+      listener.testStarted("second", System.nanoTime());
+      listener.testFinished("second", 0L, Outcome.FAILURE, null);
+      listener.preparationStarted("first \"quoted\"", annotation, null);
+      listener.preparationFinished("first \"quoted\"", annotation, null, null);
+    }, "other-worker");
+    other.start();
+    other.join();
+
+    StringWriter writer = new StringWriter();
+    listener.write(writer);
+    String trace = writer.toString();
+    assertThat(trace).startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+    assertThat(trace).contains("\"tid\":" + Thread.currentThread().getId() + ",\"cat\":\"test\",\"name\":\"first \\\"quoted\\\"\"");
+    assertThat(trace).contains("\"cat\":\"advice\",\"name\":\"" + Traced.class.getName() + "\"");
+    assertThat(trace).contains("\"tid\":" + other.getId() + ",\"cat\":\"test\",\"name\":\"second\"");
+    assertThat(trace).contains("\"tid\":" + other.getId() + ",\"cat\":\"preparation\",\"name\":\""
+            + Traced.class.getName() + "\"");
+    assertThat(trace).contains("\"args\":{\"name\":\"other-worker\"}");
+    // the advice span ends before the test span around it.
+    assertThat(trace.indexOf("\"cat\":\"advice\"")).isLessThan(trace.indexOf("\"name\":\"first"));
+  }
+
+  @Test
+  public void unmatchedEndsAreIgnored() throws IOException {
+    TraceEventListener listener = new TraceEventListener();
+    listener.testFinished("never started", 0L, Outcome.SUCCESS, null);
+    StringWriter writer = new StringWriter();
+    listener.write(writer);
+    assertThat(writer.toString()).doesNotContain("never started");
+  }
+
+  @Test
+  public void writtenOnlyOnce() throws IOException {
+    TraceEventListener listener = new TraceEventListener();
+    Path file = Files.createTempDirectory("trace").resolve("trace.json");
+    listener.testStarted("once", System.nanoTime());
+    listener.testFinished("once", 0L, Outcome.SUCCESS, null);
+    listener.writeTo(file);
+    String trace = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    assertThat(trace).contains("\"name\":\"once\"");
+
+    listener.testStarted("twice", System.nanoTime());
+    listener.testFinished("twice", 0L, Outcome.SUCCESS, null);
+    listener.writeTo(file);
+    assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)).isEqualTo(trace);
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.core.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class AdviceEventsTest {
+
+  @Rule
+  public final StaticStateRule staticState = new StaticStateRule();
+
+  @Test
+  public void testNothingIsAllocatedWhileNotRecording() {
+    Assume.assumeTrue(AdviceEvents.isAvailable());
+    assertThat(AdviceEvents.testBody("quiet")).isSameAs(AdviceEvents.NO_SPAN);
+    assertThat(AdviceEvents.objectFactoryLookup(String.class)).isSameAs(AdviceEvents.NO_LOOKUP_SPAN);
+  }
+
+  @Test
+  public void testEventsAreRecorded() throws Exception {
+    Assume.assumeTrue(AdviceEvents.isAvailable());
+    Path output = Files.createTempFile("advice-events", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("com.github.advisedtesting.TestBody").withThreshold(Duration.ZERO);
+      recording.enable("com.github.advisedtesting.ObjectFactoryLookup").withThreshold(Duration.ZERO);
+      recording.start();
+      AdviceEvents.testBody("recorded").end();
+      AdviceEvents.objectFactoryLookup(String.class).end("found");
+      recording.stop();
+      recording.dump(output);
+      List<RecordedEvent> events = RecordingFile.readAllEvents(output);
+      assertThat(events.stream().map(event -> event.getEventType().getName()).collect(Collectors.toList()))
+              .contains("com.github.advisedtesting.TestBody", "com.github.advisedtesting.ObjectFactoryLookup");
+      RecordedEvent body = events.stream().filter(event -> event.hasField("test")).findFirst().get();
+      assertThat(body.getString("test")).isEqualTo("recorded");
+    } finally {
+      Files.deleteIfExists(output);
+    }
+  }
+
+}
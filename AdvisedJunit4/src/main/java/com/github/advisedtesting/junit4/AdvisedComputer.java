@@ -0,0 +1,66 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.junit4;
+
+import org.junit.runner.Computer;
+import org.junit.runner.Runner;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
+
+/**
+ * Runs the classes passed to {@link org.junit.runner.JUnitCore#run(Computer, Class...)} as an {@link AdvisedSuite}:
+ * concurrently, longest expected first.
+ * 
+ * @author rex
+ */
+public class AdvisedComputer extends Computer {
+
+  private final int threads;
+
+  /**
+   * Runs classes on the {@link AdvisedSuite}'s default number of threads.
+   */
+  public AdvisedComputer() {
+    this(0);
+  }
+
+  /**
+   * Runs classes on a number of threads.
+   * 
+   * @param threads running classes, 0 for the default.
+   */
+  public AdvisedComputer(int threads) {
+    this.threads = threads;
+  }
+
+  @Override
+  public Runner getSuite(final RunnerBuilder builder, Class<?>[] classes) throws InitializationError {
+    return new AdvisedSuite(new RunnerBuilder() {
+      @Override
+      public Runner runnerForClass(Class<?> testClass) throws Throwable {
+        return getRunner(builder, testClass);
+      }
+    }, classes, threads);
+  }
+
+}
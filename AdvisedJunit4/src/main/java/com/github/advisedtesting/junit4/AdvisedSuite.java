@@ -0,0 +1,141 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.junit4;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.runner.Runner;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.Suite;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
+
+/**
+ * <p>
+ * A {@link Suite} that runs its classes concurrently, on a fixed pool that takes them first in, first out, longest
+ * expected first, so the run is not left waiting on a slow class that happened to start last. Use it with
+ * <code>@RunWith(AdvisedSuite.class)</code> and {@link org.junit.runners.Suite.SuiteClasses}, or through an
+ * {@link AdvisedComputer}.
+ * </p>
+ * <p>
+ * How long each class takes is recorded in the file named by the {@value #DURATIONS_PROPERTY} system property,
+ * {@value #DEFAULT_DURATIONS} by default, and read by the next run. Classes never recorded are started first. The pool
+ * has a thread per available processor, unless the suite class declares {@link ParallelClasses} or the
+ * {@value #THREADS_PROPERTY} system property is set. Tests are still admitted one by one against their
+ * {@link com.github.advisedtesting.core.ResourceCost}.
+ * </p>
+ * 
+ * @author rex
+ */
+public class AdvisedSuite extends Suite {
+
+  public static final String DURATIONS_PROPERTY = "advisedtesting.suite.durations";
+  public static final String DEFAULT_DURATIONS = "target/advised-testing-durations.properties";
+  public static final String THREADS_PROPERTY = "advisedtesting.suite.threads";
+
+  private final ClassDurations durations = new ClassDurations(
+          Paths.get(System.getProperty(DURATIONS_PROPERTY, DEFAULT_DURATIONS)));
+  private final List<Runner> longestFirst;
+
+  /**
+   * Called reflectively on classes annotated with <code>@RunWith(AdvisedSuite.class)</code>.
+   * 
+   * @param klass the suite class.
+   * @param builder builds runners for the suite's classes.
+   * @throws InitializationError if the suite is malformed.
+   */
+  public AdvisedSuite(Class<?> klass, RunnerBuilder builder) throws InitializationError {
+    super(klass, builder);
+    ParallelClasses parallel = klass.getAnnotation(ParallelClasses.class);
+    this.longestFirst = longestFirst(super.getChildren());
+    schedule(parallel != null ? parallel.threads() : 0);
+  }
+
+  /**
+   * A suite of the classes, run on threads threads.
+   * 
+   * @param builder builds runners for the classes.
+   * @param classes to run.
+   * @param threads running classes, 0 for the default.
+   * @throws InitializationError if a class is malformed.
+   */
+  public AdvisedSuite(RunnerBuilder builder, Class<?>[] classes, int threads) throws InitializationError {
+    super(builder, classes);
+    this.longestFirst = longestFirst(super.getChildren());
+    schedule(threads);
+  }
+
+  @Override
+  protected List<Runner> getChildren() {
+    // the suite's constructor may ask before the order is known.
+    return longestFirst == null ? super.getChildren() : longestFirst;
+  }
+
+  /**
+   * Runs the suite, then records how long each class took.
+   */
+  @Override
+  public void run(final RunNotifier notifier) {
+    try {
+      super.run(notifier);
+    } finally {
+      durations.save();
+    }
+  }
+
+  @Override
+  protected void runChild(final Runner runner, final RunNotifier notifier) {
+    long start = System.nanoTime();
+    try {
+      super.runChild(runner, notifier);
+    } finally {
+      durations.measured(runner.getDescription().getClassName(),
+              TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+  }
+
+  private List<Runner> longestFirst(List<Runner> runners) {
+    List<Runner> output = new ArrayList<>(runners);
+    // a stable sort, classes of equal duration keep their declared order.
+    output.sort(Comparator.comparingLong((Runner runner) -> {
+      Long expected = durations.expected(runner.getDescription().getClassName());
+      return expected == null ? Long.MAX_VALUE : expected;
+    }).reversed());
+    return Collections.unmodifiableList(output);
+  }
+
+  private void schedule(int threads) {
+    int parallelism = threads > 0 ? threads : Integer.getInteger(THREADS_PROPERTY, 0);
+    if (parallelism <= 0) {
+      parallelism = Runtime.getRuntime().availableProcessors();
+    }
+    // the pool's queue is first in, first out, so the longest start first.
+    setScheduler(new ParallelScheduler("suite", parallelism));
+  }
+
+}
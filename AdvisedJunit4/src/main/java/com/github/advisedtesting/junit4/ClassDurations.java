@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.junit4;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * How long each test class took the last time it ran, in milliseconds, kept as a properties file keyed by class name.
+ * Measurements of this run replace the recorded ones when saved; classes that did not run keep their old value.
+ */
+class ClassDurations {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ClassDurations.class);
+
+  private final Path file;
+  private final Map<String, Long> recorded;
+  private final Map<String, Long> measured = new ConcurrentHashMap<>();
+
+  ClassDurations(Path file) {
+    this.file = file;
+    this.recorded = read(file);
+  }
+
+  /**
+   * The recorded duration of a class.
+   * 
+   * @param className of the test class.
+   * @return milliseconds, or null if the class has not been recorded.
+   */
+  Long expected(String className) {
+    return recorded.get(className);
+  }
+
+  void measured(String className, long millis) {
+    measured.put(className, millis);
+  }
+
+  /**
+   * Merges this run's measurements into the file, re-reading it first so concurrent suites do not drop each other's.
+   */
+  void save() {
+    if (measured.isEmpty()) {
+      return;
+    }
+    synchronized (ClassDurations.class) {
+      Properties output = new Properties();
+      read(file).forEach((name, millis) -> output.setProperty(name, Long.toString(millis)));
+      measured.forEach((name, millis) -> output.setProperty(name, Long.toString(millis)));
+      try {
+        Path absolute = file.toAbsolutePath();
+        if (absolute.getParent() != null) {
+          Files.createDirectories(absolute.getParent());
+        }
+        Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+          output.store(out, "test class durations in milliseconds");
+        }
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING);
+      } catch (IOException | RuntimeException ex) {
+        LOGGER.warn("Could not record test class durations to " + file, ex);
+      }
+    }
+  }
+
+  private static Map<String, Long> read(Path file) {
+    Map<String, Long> output = new ConcurrentHashMap<>();
+    if (!Files.isRegularFile(file)) {
+      return output;
+    }
+    Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(file)) {
+      properties.load(in);
+    } catch (IOException | RuntimeException ex) {
+      LOGGER.warn("Could not read test class durations from " + file, ex);
+      return output;
+    }
+    for (String name : properties.stringPropertyNames()) {
+      try {
+        output.put(name, Long.parseLong(properties.getProperty(name).trim()));
+      } catch (NumberFormatException ex) {
+        // a hand edited entry, ignored.
+      }
+    }
+    return output;
+  }
+
+}
@@ -22,7 +22,7 @@
  */
 package com.github.advisedtesting.junit4;
 
-import static com.github.advisedtesting.core.internal.AdviceAnnotationEvaluator.inspect;
+import static com.github.advisedtesting.core.internal.AdviceAnnotationEvaluator.adviceChain;
 import static com.github.advisedtesting.core.internal.ExceptionEvaluator.convertExceptionIfPossible;
 
 import java.lang.annotation.Annotation;
@@ -30,8 +30,12 @@ import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import org.aopalliance.intercept.MethodInterceptor;
@@ -41,6 +45,7 @@ import org.junit.Test;
 import org.junit.internal.runners.model.EachTestNotifier;
 import org.junit.rules.RunRules;
 import org.junit.rules.TestRule;
+import org.junit.runner.Description;
 import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.BlockJUnit4ClassRunner;
 import org.junit.runners.model.FrameworkMethod;
@@ -48,10 +53,22 @@ import org.junit.runners.model.InitializationError;
 import org.junit.runners.model.Statement;
 import org.junit.runners.model.TestClass;
 
+import com.github.advisedtesting.core.AdviceListener.Outcome;
+import com.github.advisedtesting.core.AdviceScope;
+import com.github.advisedtesting.core.AsyncContextAwareMethodInvocation;
+import com.github.advisedtesting.core.AsyncMethodInterceptor;
 import com.github.advisedtesting.core.ConstraintException;
-import com.github.advisedtesting.core.ContextAwareMethodInvocation;
 import com.github.advisedtesting.core.ObjectFactory;
+import com.github.advisedtesting.core.PreparingMethodInterceptor;
+import com.github.advisedtesting.core.internal.AdviceEvents;
+import com.github.advisedtesting.core.internal.AdviceListeners;
+import com.github.advisedtesting.core.internal.AdvicePool;
+import com.github.advisedtesting.core.internal.MethodHandleInvoker;
+import com.github.advisedtesting.core.internal.MethodHandleInvoker.BoundMethod;
 import com.github.advisedtesting.core.internal.ProviderAwareObjectFactoryAggregate;
+import com.github.advisedtesting.core.internal.ResourceBudget;
+import com.github.advisedtesting.core.internal.ScopedInterceptors;
+import com.github.advisedtesting.core.internal.SetupBarrier;
 import com.github.advisedtesting.core.internal.TestContext;
 
 public class Junit4AopClassRunner extends BlockJUnit4ClassRunner {
@@ -68,10 +85,61 @@ public class Junit4AopClassRunner extends BlockJUnit4ClassRunner {
    */ 
   private static final TestContext CONTEXT = new TestContext();
   private final Class<?> targetClass;
+  private final ScopedInterceptors classInterceptors = new ScopedInterceptors(AdviceScope.TEST_CLASS, null);
+  private final ProviderAwareObjectFactoryAggregate classRegistrar = new ProviderAwareObjectFactoryAggregate();
+  // the budget reserved for the class's advice while the class runs, its tests are admitted on top of it.
+  private volatile ResourceBudget.Lease classReservation;
   
+  /**
+   * Builds the runner, running the class's tests concurrently if it, or the system, asks for {@link ParallelTests}.
+   * 
+   * @param klass the test class.
+   * @throws InitializationError if the class is not a valid test class.
+   */
   public Junit4AopClassRunner(final Class<?> klass) throws InitializationError {
     super(klass);
     targetClass = klass;
+    int threads = ParallelScheduler.threadsFor(klass);
+    if (threads > 0) {
+      setScheduler(new ParallelScheduler(klass.getSimpleName(), threads));
+    }
+  }
+
+  /**
+   * Runs the class, then closes its {@link AdviceScope#TEST_CLASS} scoped advice.
+   */
+  @Override
+  public void run(final RunNotifier notifier) {
+    try {
+      super.run(notifier);
+    } finally {
+      classInterceptors.close();
+    }
+  }
+
+  /**
+   * Wraps the whole class run, before and after class methods included, in the advice declared on the test class. Their
+   * contexts are built once, and are looked up by every test after the test's own contexts. The cost of that advice is
+   * {@link ResourceBudget#reserve(ResourceBudget.Cost) reserved} from the {@link ResourceBudget} for the whole run.
+   */
+  @Override
+  protected Statement classBlock(final RunNotifier notifier) {
+    Statement statement = super.classBlock(notifier);
+    List<Annotation> annotations = adviceChain(targetClass);
+    if (annotations.isEmpty()) {
+      return statement;
+    }
+    SetupBarrier setupBarrier = new SetupBarrier();
+    statement = new AwaitSetupStatement(statement, setupBarrier);
+    for (int index = annotations.size() - 1; index >= 0; index--) {
+      statement = new AdvisedStatement(statement, CONTEXT, classRegistrar, annotations.get(index), setupBarrier,
+              Preparation.NONE, classInterceptors, targetClass.getName());
+    }
+    ResourceBudget.Cost cost = ResourceBudget.classCostOf(targetClass);
+    if (cost != null) {
+      statement = new ReservedStatement(statement, cost);
+    }
+    return new ConstrainedStatement(statement);
   }
 
   @Override
@@ -80,9 +148,29 @@ public class Junit4AopClassRunner extends BlockJUnit4ClassRunner {
     // TODO: validate with the object factories?
   }
 
+  /**
+   * Runs the test once its {@link com.github.advisedtesting.core.ResourceCost} fits the {@link ResourceBudget}, so tests run
+   * in parallel by a scheduler never oversubscribe the jvm. The budget reserved for the class's advice does not count
+   * against its own tests.
+   */
   @Override
   protected void runChild(final FrameworkMethod method, final RunNotifier notifier) {
-    runContextualizedLeaf(method, notifier);
+    ResourceBudget.Lease lease;
+    try {
+      lease = ResourceBudget.get().acquire(ResourceBudget.costOf(targetClass, method.getMethod()), classReservation);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      EachTestNotifier eachNotifier = new EachTestNotifier(notifier, describeChild(method));
+      eachNotifier.fireTestStarted();
+      eachNotifier.addFailure(ex);
+      eachNotifier.fireTestFinished();
+      return;
+    }
+    try {
+      runContextualizedLeaf(method, notifier);
+    } finally {
+      lease.close();
+    }
   }
 
   @Override
@@ -91,104 +179,367 @@ public class Junit4AopClassRunner extends BlockJUnit4ClassRunner {
   }
 
   private final void runContextualizedLeaf(final FrameworkMethod frameworkMethod, final RunNotifier notifier) {
-    final EachTestNotifier eachNotifier = new EachTestNotifier(notifier, describeChild(frameworkMethod));
+    final Description description = describeChild(frameworkMethod);
+    final EachTestNotifier eachNotifier = new EachTestNotifier(notifier, description);
     eachNotifier.fireTestStarted();
-    ProviderAwareObjectFactoryAggregate registrar = new ProviderAwareObjectFactoryAggregate();
+    long startNanos = System.nanoTime();
+    AdviceListeners.testStarted(description.getDisplayName(), startNanos);
+    AdviceEvents.Span testSpan = AdviceEvents.test(description.getDisplayName());
+    Outcome outcome = Outcome.SUCCESS;
+    Throwable failure = null;
+    ProviderAwareObjectFactoryAggregate registrar = new ProviderAwareObjectFactoryAggregate(classRegistrar);
+    ScopedInterceptors testInterceptors = new ScopedInterceptors(AdviceScope.TEST, classInterceptors);
+    SetupBarrier setupBarrier = new SetupBarrier();
     List<Annotation> annotations = adviceAnnotations(frameworkMethod);
-    Collections.reverse(annotations);
-    DelayedConstructionStatement delayedStatement = new DelayedConstructionStatement(frameworkMethod, targetClass, registrar);
-    Statement statement = delayedStatement;
-    for (Annotation annotation : annotations) {
-      statement = new AdvisedStatement(statement, CONTEXT, registrar, annotation);
-    }
+    List<Preparation> preparations = new ArrayList<>(annotations.size());
     try {
+      prepare(annotations, testInterceptors, description.getDisplayName(), preparations);
+      DelayedConstructionStatement delayedStatement = new DelayedConstructionStatement(frameworkMethod, targetClass, registrar);
+      Statement statement = new AwaitSetupStatement(delayedStatement, setupBarrier);
+      for (int index = annotations.size() - 1; index >= 0; index--) {
+        statement = new AdvisedStatement(statement, CONTEXT, registrar, annotations.get(index), setupBarrier,
+                preparations.get(index), testInterceptors, description.getDisplayName());
+      }
       statement.evaluate();
     } catch (final Throwable th) {
+      failure = th;
       final ConstraintException contraintException = convertExceptionIfPossible(th, ConstraintException.class);
       if (contraintException != null) {
+        outcome = Outcome.SKIPPED;
         eachNotifier.addFailedAssumption(new AssumptionViolatedException(contraintException.getMessage(), contraintException));
       } else {
+        outcome = Outcome.FAILURE;
         eachNotifier.addFailure(th);
       }
     } finally {
+      preparations.forEach(Preparation::discardIfUnread);
+      testInterceptors.close();
+      testSpan.end();
+      AdviceListeners.testFinished(description.getDisplayName(), startNanos, outcome, failure);
       eachNotifier.fireTestFinished();
     }
   }
 
-  private List<Annotation> adviceAnnotations(final FrameworkMethod frameworkMethod) {
-    List<Annotation> annotations = new ArrayList<>();
-    for (Annotation annotation : inspect(frameworkMethod.getMethod().getAnnotations())) {
-      if (CONTEXT.isAdviceAnnotation(annotation)) {
-        annotations.add(annotation);
+  /**
+   * Starts the preparation of the {@link PreparingMethodInterceptor}s at the head of the chain on the {@link AdvicePool},
+   * outermost first, up to the first advice that does not prepare: it may be there to guard what it wraps, a lock for
+   * instance, so nothing nested in it is prepared ahead of it. Advice nested in one that
+   * {@link PreparingMethodInterceptor#preparesClassLoader(Annotation) prepares a classloader} is resolved and prepared
+   * once that classloader is built.
+   */
+  private static void prepare(List<Annotation> annotations, ScopedInterceptors scopes, String test,
+          List<Preparation> output) {
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    for (Annotation annotation : annotations) {
+      MethodInterceptor found = classLoader == null ? null : CONTEXT.getAdviceFor(annotation, classLoader, scopes);
+      if (!(found instanceof PreparingMethodInterceptor)) {
+        break;
+      }
+      PreparingMethodInterceptor preparing = (PreparingMethodInterceptor) found;
+      Preparation preparation = new Preparation(annotation, preparing, classLoader, test);
+      output.add(preparation);
+      if (preparing.preparesClassLoader(annotation)) {
+        // a failed classloader stops preparation, the advice sees the failure when it reads its preparation.
+        Object prepared = preparation.prepared.exceptionally(ex -> null).join();
+        classLoader = prepared instanceof ClassLoader ? (ClassLoader) prepared : null;
       }
     }
-    return annotations;
+    while (output.size() < annotations.size()) {
+      output.add(Preparation.NONE);
+    }
   }
 
+  private List<Annotation> adviceAnnotations(final FrameworkMethod frameworkMethod) {
+    // the cached chain only holds annotations with a usable implementedBy, so needs no further filtering.
+    return new ArrayList<>(adviceChain(frameworkMethod.getMethod()));
+  }
+
+  /**
+   * Runs an advice around the advised statement. {@link AsyncMethodInterceptor}s are allowed to leave their setup running
+   * while the chain proceeds, any other advice first waits for all pending setup.
+   */
   public static class AdvisedStatement extends Statement {
 
     private final Statement advised;
     private final TestContext context;
     private final ProviderAwareObjectFactoryAggregate registry;
     private final Annotation annotation;
+    private final SetupBarrier setupBarrier;
+    private final Preparation preparation;
+    private final ScopedInterceptors scopes;
+    private final String test;
 
     public AdvisedStatement(Statement advised, TestContext context, ProviderAwareObjectFactoryAggregate registry,
             Annotation annotation) {
+      this(advised, context, registry, annotation, new SetupBarrier());
+    }
+
+    public AdvisedStatement(Statement advised, TestContext context, ProviderAwareObjectFactoryAggregate registry,
+            Annotation annotation, SetupBarrier setupBarrier) {
+      this(advised, context, registry, annotation, setupBarrier, Preparation.NONE, null, null);
+    }
+
+    AdvisedStatement(Statement advised, TestContext context, ProviderAwareObjectFactoryAggregate registry,
+            Annotation annotation, SetupBarrier setupBarrier, Preparation preparation, ScopedInterceptors scopes, String test) {
       this.advised = advised;
       this.context = context;
       this.registry = registry;
       this.annotation = annotation;
+      this.setupBarrier = setupBarrier;
+      this.preparation = preparation;
+      this.scopes = scopes;
+      this.test = test;
     }
 
     @Override
     public void evaluate() throws Throwable {
       ClassLoader classloader = Thread.currentThread().getContextClassLoader();
-      MethodInterceptor advisor = context.getAdviceFor(annotation, classloader);
-      advisor.invoke(new ContextAwareMethodInvocation() {
-
-        @Override
-        public void registerObjectFactory(ObjectFactory factory) {
-          registry.register(annotation, factory);
+      MethodInterceptor advisor = preparation.advisorFor(classloader);
+      if (advisor == null) {
+        advisor = context.getAdviceFor(annotation, classloader, scopes);
+      }
+      AdvisedInvocation invocation = new AdvisedInvocation(advised, registry, annotation, setupBarrier, preparation, test);
+      AdviceEvents.Span span = AdviceEvents.advice(annotation, advisor, test);
+      AdviceListeners.adviceEntered(test, annotation, advisor);
+      Throwable failure = null;
+      try {
+        if (advisor instanceof AsyncMethodInterceptor) {
+          SetupBarrier.await(((AsyncMethodInterceptor) advisor).invokeAsync(invocation));
+        } else {
+          setupBarrier.await();
+          advisor.invoke(invocation);
         }
+      } catch (Throwable th) {
+        failure = th;
+        throw th;
+      } finally {
+        span.end();
+        AdviceListeners.adviceExited(test, annotation, advisor, failure);
+      }
+    }
 
-        @Override
-        public ObjectFactory getCurrentContextFactory() {
-          return registry;
-        }
+  }
 
-        @Override
-        public Object proceed() throws Throwable {
-          advised.evaluate();
-          return null;
-        }
+  private static class AdvisedInvocation implements AsyncContextAwareMethodInvocation {
 
-        @Override
-        public Object getThis() {
-          return null;
-        }
+    private final Statement advised;
+    private final ProviderAwareObjectFactoryAggregate registry;
+    private final Annotation annotation;
+    private final SetupBarrier setupBarrier;
+    private final Preparation preparation;
+    private final String test;
 
-        @Override
-        public AccessibleObject getStaticPart() {
-          return null;
-        }
+    AdvisedInvocation(Statement advised, ProviderAwareObjectFactoryAggregate registry, Annotation annotation,
+            SetupBarrier setupBarrier, Preparation preparation, String test) {
+      this.advised = advised;
+      this.registry = registry;
+      this.annotation = annotation;
+      this.setupBarrier = setupBarrier;
+      this.preparation = preparation;
+      this.test = test;
+    }
+
+    @Override
+    public void registerObjectFactory(ObjectFactory factory) {
+      registry.register(annotation, factory);
+      AdviceListeners.objectFactoryRegistered(test, annotation, factory);
+    }
+
+    @Override
+    public ObjectFactory getCurrentContextFactory() {
+      return registry;
+    }
+
+    @Override
+    public Object proceed() throws Throwable {
+      advised.evaluate();
+      return null;
+    }
+
+    /**
+     * Runs the nested chain on the calling thread, only the setup is left pending, so teardown composed on the returned
+     * stage nests as it would around {@link #proceed()}.
+     */
+    @Override
+    public CompletionStage<Object> proceedAsync(CompletionStage<?> setup) {
+      setupBarrier.add(setup);
+      try {
+        advised.evaluate();
+        return CompletableFuture.completedFuture(null);
+      } catch (Throwable th) {
+        return SetupBarrier.failed(th);
+      }
+    }
+
+    @Override
+    public Executor getExecutor() {
+      return AdvicePool.get();
+    }
+
+    @Override
+    public CompletionStage<Object> getPreparation() {
+      return preparation.read();
+    }
+
+    @Override
+    public Object getThis() {
+      return null;
+    }
+
+    @Override
+    public AccessibleObject getStaticPart() {
+      return null;
+    }
+
+    @Override
+    public Object[] getArguments() {
+      return new Object[] {};
+    }
+
+    @Override
+    public Method getMethod() {
+      return null;
+    }
 
-        @Override
-        public Object[] getArguments() {
-          return new Object[] {};
+    @Override
+    public Annotation getTargetAnnotation() {
+      return annotation;
+    }
+  }
+
+  /**
+   * The preparation of a single advice, started on the {@link AdvicePool} at construction. Holds the advice resolved on
+   * the test thread, so the chain invokes the very instance that prepared, whatever its scope.
+   */
+  private static class Preparation {
+
+    private static final Preparation NONE = new Preparation();
+
+    private final Annotation annotation;
+    private final PreparingMethodInterceptor advisor;
+    private final ClassLoader classLoader;
+    private final CompletableFuture<Object> prepared;
+    private final AtomicBoolean read = new AtomicBoolean();
+
+    private Preparation() {
+      this.annotation = null;
+      this.advisor = null;
+      this.classLoader = null;
+      this.prepared = CompletableFuture.completedFuture(null);
+    }
+
+    Preparation(Annotation annotation, PreparingMethodInterceptor advisor, ClassLoader classLoader, String test) {
+      this.annotation = annotation;
+      this.advisor = advisor;
+      this.classLoader = classLoader;
+      this.prepared = CompletableFuture.supplyAsync(() -> {
+        AdviceEvents.Span span = AdviceEvents.preparation(annotation, advisor);
+        AdviceListeners.preparationStarted(test, annotation, advisor);
+        Throwable failure = null;
+        try {
+          return advisor.prepare(annotation, classLoader);
+        } catch (Throwable th) {
+          failure = th;
+          throw new CompletionException(th);
+        } finally {
+          AdviceListeners.preparationFinished(test, annotation, advisor, failure);
+          span.end();
         }
+      }, AdvicePool.get());
+    }
 
-        @Override
-        public Method getMethod() {
-          return null;
+    /**
+     * The advice that prepared, if it was resolved against the classloader the chain now runs in, else null.
+     */
+    MethodInterceptor advisorFor(ClassLoader runningIn) {
+      return advisor != null && classLoader == runningIn ? advisor : null;
+    }
+
+    CompletionStage<Object> read() {
+      read.set(true);
+      return prepared;
+    }
+
+    void discardIfUnread() {
+      if (annotation != null && read.compareAndSet(false, true)) {
+        prepared.thenAccept(value -> {
+          if (value != null) {
+            advisor.discard(annotation, value);
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Reports a {@link ConstraintException} thrown by class level advice as a failed assumption, as it is for a test.
+   */
+  private static class ConstrainedStatement extends Statement {
+
+    private final Statement next;
+
+    ConstrainedStatement(Statement next) {
+      this.next = next;
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+      try {
+        next.evaluate();
+      } catch (final Throwable th) {
+        final ConstraintException contraintException = convertExceptionIfPossible(th, ConstraintException.class);
+        if (contraintException != null) {
+          throw new AssumptionViolatedException(contraintException.getMessage(), contraintException);
         }
+        throw th;
+      }
+    }
+  }
 
-        @Override
-        public Annotation getTargetAnnotation() {
-          return annotation;
+  /**
+   * Holds the budget reserved for the test class's advice while the class runs.
+   */
+  private class ReservedStatement extends Statement {
+
+    private final Statement next;
+    private final ResourceBudget.Cost cost;
+
+    ReservedStatement(Statement next, ResourceBudget.Cost cost) {
+      this.next = next;
+      this.cost = cost;
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+      try (ResourceBudget.Lease lease = ResourceBudget.get().reserve(cost)) {
+        classReservation = lease;
+        try {
+          next.evaluate();
+        } finally {
+          classReservation = null;
         }
-      });
+      }
+    }
+  }
+
+  /**
+   * Waits on every advice's pending setup before the test instance is constructed.
+   */
+  private static class AwaitSetupStatement extends Statement {
+
+    private final Statement next;
+    private final SetupBarrier setupBarrier;
+
+    AwaitSetupStatement(Statement next, SetupBarrier setupBarrier) {
+      this.next = next;
+      this.setupBarrier = setupBarrier;
     }
 
+    @Override
+    public void evaluate() throws Throwable {
+      setupBarrier.await();
+      next.evaluate();
+    }
   }
   
   /**
@@ -233,15 +584,12 @@ public class Junit4AopClassRunner extends BlockJUnit4ClassRunner {
       } else {
         wrapped = true;
         ClassLoader loader = Thread.currentThread().getContextClassLoader();
-        Class<?> targetClassInLoader = Class.forName(targetClass, true, loader);
-        Object target = targetClassInLoader.newInstance();
-        List<Class<?>> parameters = new ArrayList<>();
-        for (String className : parameterTypes) {
-          parameters.add(Class.forName(className, true, loader));
-        }
-        Method method = targetClassInLoader.getMethod(testName, parameters.toArray(new Class[] {}));
+        MethodHandleInvoker invoker = MethodHandleInvoker.of(Class.forName(targetClass, true, loader));
+        Object target = invoker.newInstance();
+        BoundMethod boundMethod = invoker.method(testName, parameterTypes);
+        Method method = boundMethod.getMethod();
         FrameworkMethod fmethod = new FrameworkMethod(method);
-        Statement newTarget = new IvokationMethodWithArguments(target, fmethod, registry.getArgumentsFor(method));
+        Statement newTarget = new IvokationMethodWithArguments(target, boundMethod, registry.getArgumentsFor(method));
         //simulates standard statement processing by junit 4.
         newTarget = possiblyExpectingExceptions(fmethod, target, newTarget);
         newTarget = withPotentialTimeout(fmethod, target, newTarget);
@@ -249,8 +597,14 @@ public class Junit4AopClassRunner extends BlockJUnit4ClassRunner {
         newTarget = withAfters(fmethod, target, newTarget);
         //newTarget = withRules(fmethod, target, newTarget);
         List<TestRule> testRules = getTestRules(target);
-        newTarget = new RunRules(newTarget, testRules, describeChild(fmethod));
-        newTarget.evaluate();
+        Description description = describeChild(fmethod);
+        newTarget = new RunRules(newTarget, testRules, description);
+        AdviceEvents.Span span = AdviceEvents.testBody(description.getDisplayName());
+        try {
+          newTarget.evaluate();
+        } finally {
+          span.end();
+        }
       }
     }
   }
@@ -258,12 +612,16 @@ public class Junit4AopClassRunner extends BlockJUnit4ClassRunner {
   public static class IvokationMethodWithArguments extends Statement {
 
     private final Object target;
-    private final FrameworkMethod method;
+    private final BoundMethod method;
     private final Object[] arguments;
     
     
     
     public IvokationMethodWithArguments(Object target, FrameworkMethod method, Object[] arguments) {
+      this(target, MethodHandleInvoker.bind(method.getMethod()), arguments);
+    }
+
+    public IvokationMethodWithArguments(Object target, BoundMethod method, Object[] arguments) {
       super();
       this.target = target;
       this.method = method;
@@ -272,7 +630,7 @@ public class Junit4AopClassRunner extends BlockJUnit4ClassRunner {
 
     @Override
     public void evaluate() throws Throwable {
-      method.invokeExplosively(target, arguments);
+      method.invoke(target, arguments);
     }
     
   }
@@ -0,0 +1,144 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.junit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.runners.model.RunnerScheduler;
+
+import com.github.advisedtesting.core.internal.TestContext;
+
+/**
+ * Runs a runner's children on a pool of daemon threads, each with the context classloader of the thread that
+ * scheduled it, restoring the worker's own afterwards. {@link #finished()} returns once every child has run, and shuts
+ * the pool down; if the waiting thread is interrupted, the children still running are interrupted, those not yet started
+ * are cancelled and it returns straight away. A worker closes its thread scoped advice as it exits.
+ */
+class ParallelScheduler implements RunnerScheduler {
+
+  private final ExecutorService executor;
+  private final List<Future<?>> scheduled = new ArrayList<>();
+
+  ParallelScheduler(String name, int threads) {
+    this(fixedPool(name, threads));
+  }
+
+  /**
+   * Schedules on the executor, which is shut down once the children have run.
+   * 
+   * @param executor running the children.
+   */
+  ParallelScheduler(ExecutorService executor) {
+    this.executor = executor;
+  }
+
+  private static ExecutorService fixedPool(String name, int threads) {
+    AtomicInteger count = new AtomicInteger();
+    return Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(() -> {
+        try {
+          runnable.run();
+        } finally {
+          TestContext.closeThreadScope();
+        }
+      }, "advised-testing-" + name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * The thread count for a test class, from {@link ParallelTests}, or the {@value ParallelTests#PROPERTY} system property.
+   * 
+   * @param testClass to run.
+   * @return the thread count, or 0 if the class's tests run sequentially.
+   */
+  static int threadsFor(Class<?> testClass) {
+    ParallelTests parallel = testClass.getAnnotation(ParallelTests.class);
+    if (parallel != null) {
+      return parallel.threads() > 0 ? parallel.threads() : Runtime.getRuntime().availableProcessors();
+    }
+    String property = System.getProperty(ParallelTests.PROPERTY, "").trim();
+    if (property.equalsIgnoreCase("true")) {
+      return Runtime.getRuntime().availableProcessors();
+    }
+    try {
+      return Math.max(0, Integer.parseInt(property));
+    } catch (NumberFormatException ex) {
+      return 0;
+    }
+  }
+
+  @Override
+  public void schedule(Runnable childStatement) {
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    scheduled.add(executor.submit(() -> {
+      Thread current = Thread.currentThread();
+      ClassLoader previous = current.getContextClassLoader();
+      current.setContextClassLoader(classLoader);
+      try {
+        childStatement.run();
+      } finally {
+        current.setContextClassLoader(previous);
+      }
+    }));
+  }
+
+  @Override
+  public void finished() {
+    executor.shutdown();
+    Throwable failure = null;
+    boolean interrupted = false;
+    for (Future<?> future : scheduled) {
+      try {
+        future.get();
+      } catch (InterruptedException ex) {
+        // shutdownNow drops the queued children, whose futures would then never complete.
+        interrupted = true;
+        executor.shutdownNow();
+        scheduled.forEach(remaining -> remaining.cancel(true));
+        break;
+      } catch (ExecutionException ex) {
+        if (failure == null) {
+          failure = ex.getCause();
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+  }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.junit4;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Runs the test methods of a {@link Junit4AopClassRunner} class concurrently. Each test is still run start to finish on
+ * a single thread, with the context classloader of the thread that runs the class, so its notifications, thread local
+ * log capture and {@link com.github.advisedtesting.core.AdviceScope#THREAD} scoped advice all stay on that thread.
+ * </p>
+ * <p>
+ * Setting the {@value #PROPERTY} system property to true, or to a number of threads, runs every class this way. Tests
+ * are still admitted one by one against their {@link com.github.advisedtesting.core.ResourceCost}.
+ * </p>
+ * 
+ * @author rex
+ */
+@Target({ TYPE })
+@Retention(RUNTIME)
+@Documented
+@Inherited
+public @interface ParallelTests {
+
+  String PROPERTY = "advisedtesting.junit4.parallel";
+
+  /**
+   * Threads running the class's tests.
+   * 
+   * @return the thread count, 0, the default, for one per available processor.
+   */
+  int threads() default 0;
+
+}
@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.junit4.async;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+
+import com.github.advisedtesting.core.AsyncContextAwareMethodInvocation;
+import com.github.advisedtesting.core.AsyncMethodInterceptor;
+import com.github.advisedtesting.core.ObjectFactory;
+import com.github.advisedtesting.core.internal.DeferredObjectFactory;
+import com.github.advisedtesting.core.internal.SimpleObjectFactory;
+import com.github.advisedtesting.junit4.Junit4AopClassRunner;
+
+public class TestAsyncAdvice {
+
+  private static final List<String> EVENTS = Collections.synchronizedList(new ArrayList<>());
+
+  @Target({ ElementType.METHOD, ElementType.PARAMETER })
+  @Retention(RUNTIME)
+  @Documented
+  @Repeatable(AsyncFixtures.class)
+  public @interface AsyncFixture {
+    /**
+     * example.
+     * @return example.
+     */
+    String name() default "__default";
+
+    /**
+     * example.
+     * @return example.
+     */
+    String value() default "";
+
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default AsyncFixtureAdvice.class;
+  }
+
+  @Target({ ElementType.METHOD })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface AsyncFixtures {
+    /**
+     * example.
+     * @return example.
+     */
+    AsyncFixture[] value();
+  }
+
+  public static class AsyncFixtureAdvice implements AsyncMethodInterceptor {
+    @Override
+    public CompletionStage<Object> invokeAsync(AsyncContextAwareMethodInvocation invocation) {
+      AsyncFixture fixture = (AsyncFixture) invocation.getTargetAnnotation();
+      CompletableFuture<ObjectFactory> setup = CompletableFuture.supplyAsync(() -> {
+        EVENTS.add("setup " + fixture.value());
+        SimpleObjectFactory factory = new SimpleObjectFactory();
+        factory.add(fixture.value(), fixture.value());
+        return factory;
+      }, invocation.getExecutor());
+      invocation.registerObjectFactory(new DeferredObjectFactory(setup));
+      return invocation.proceedAsync(setup).whenComplete((result, throwable) -> EVENTS.add("teardown " + fixture.value()));
+    }
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  public static class AsyncAdvised {
+
+    @Test
+    @AsyncFixture(name = "outer", value = "outer")
+    @AsyncFixture(name = "inner", value = "inner")
+    public void injected(@AsyncFixture(name = "outer") String outer, @AsyncFixture(name = "inner") String inner) {
+      EVENTS.add("test");
+      assertThat(outer).isEqualTo("outer");
+      assertThat(inner).isEqualTo("inner");
+    }
+  }
+
+  @Test
+  public void asyncAdvicesNestAroundTest() {
+    EVENTS.clear();
+    Result result = JUnitCore.runClasses(AsyncAdvised.class);
+    assertThat(result.getFailures()).isEmpty();
+    assertThat(EVENTS).hasSize(5).contains("setup outer", "setup inner");
+    assertThat(EVENTS.subList(2, 5)).containsExactly("test", "teardown inner", "teardown outer");
+  }
+
+}
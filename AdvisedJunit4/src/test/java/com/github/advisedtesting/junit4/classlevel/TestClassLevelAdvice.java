@@ -0,0 +1,123 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.junit4.classlevel;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+
+import com.github.advisedtesting.core.ContextAwareMethodInvocation;
+import com.github.advisedtesting.core.internal.SimpleObjectFactory;
+import com.github.advisedtesting.junit4.Junit4AopClassRunner;
+
+public class TestClassLevelAdvice {
+
+  private static final AtomicInteger BUILDS = new AtomicInteger();
+  private static final List<String> EVENTS = Collections.synchronizedList(new ArrayList<>());
+
+  @Target({ ElementType.TYPE, ElementType.METHOD, ElementType.PARAMETER })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface Fixture {
+    /**
+     * example.
+     * @return example.
+     */
+    String name() default "__default";
+
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default FixtureAdvice.class;
+  }
+
+  public static class FixtureAdvice implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      ContextAwareMethodInvocation cinvocation = (ContextAwareMethodInvocation) invocation;
+      String name = ((Fixture) cinvocation.getTargetAnnotation()).name();
+      SimpleObjectFactory factory = new SimpleObjectFactory();
+      factory.add(name, name + " " + BUILDS.incrementAndGet());
+      cinvocation.registerObjectFactory(factory);
+      EVENTS.add("start " + name);
+      try {
+        return invocation.proceed();
+      } finally {
+        EVENTS.add("end " + name);
+      }
+    }
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  @Fixture(name = "shared")
+  public static class ClassAdvised {
+
+    @BeforeClass
+    public static void beforeClass() {
+      EVENTS.add("before class");
+    }
+
+    @Test
+    public void first(@Fixture(name = "shared") String shared) {
+      EVENTS.add("first " + shared);
+    }
+
+    @Test
+    @Fixture(name = "own")
+    public void second(@Fixture(name = "shared") String shared, @Fixture(name = "own") String own) {
+      EVENTS.add("second " + shared + ", " + own);
+    }
+  }
+
+  @Test
+  public void classAdviceWrapsEveryTest() {
+    BUILDS.set(0);
+    EVENTS.clear();
+    Result result = JUnitCore.runClasses(ClassAdvised.class);
+    assertThat(result.getFailures()).isEmpty();
+    assertThat(BUILDS.get()).isEqualTo(2);
+    assertThat(EVENTS.get(0)).isEqualTo("start shared");
+    assertThat(EVENTS.get(1)).isEqualTo("before class");
+    assertThat(EVENTS.get(EVENTS.size() - 1)).isEqualTo("end shared");
+    assertThat(EVENTS).contains("first shared 1", "second shared 1, own 2", "start own", "end own");
+  }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.junit4.listener;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+
+import com.github.advisedtesting.core.AdviceListener;
+import com.github.advisedtesting.core.ContextAwareMethodInvocation;
+import com.github.advisedtesting.core.ObjectFactory;
+import com.github.advisedtesting.core.PreparingMethodInterceptor;
+import com.github.advisedtesting.core.internal.SetupBarrier;
+import com.github.advisedtesting.core.internal.SimpleObjectFactory;
+import com.github.advisedtesting.junit4.Junit4AopClassRunner;
+
+public class TestAdviceListeners {
+
+  private static final Map<String, List<String>> EVENTS = new ConcurrentHashMap<>();
+  private static volatile boolean recording = false;
+
+  @Target({ ElementType.METHOD })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface Registering {
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default RegisteringAdvice.class;
+  }
+
+  public static class RegisteringAdvice implements PreparingMethodInterceptor {
+
+    @Override
+    public Object prepare(Annotation annotation, ClassLoader classLoader) {
+      return "registered";
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      ContextAwareMethodInvocation cinvocation = (ContextAwareMethodInvocation) invocation;
+      SimpleObjectFactory factory = new SimpleObjectFactory();
+      factory.add("value", SetupBarrier.await(cinvocation.getPreparation()));
+      cinvocation.registerObjectFactory(factory);
+      return invocation.proceed();
+    }
+  }
+
+  public static class RecordingListener implements AdviceListener {
+
+    @Override
+    public void testStarted(String test, long startNanos) {
+      record(test, "started " + test);
+    }
+
+    @Override
+    public void preparationStarted(String test, Annotation annotation, MethodInterceptor interceptor) {
+      record(test, "preparing " + annotation.annotationType().getSimpleName());
+    }
+
+    @Override
+    public void preparationFinished(String test, Annotation annotation, MethodInterceptor interceptor,
+            Throwable failure) {
+      record(test, "prepared " + annotation.annotationType().getSimpleName());
+    }
+
+    @Override
+    public void adviceEntered(String test, Annotation annotation, MethodInterceptor interceptor) {
+      record(test, "entered " + annotation.annotationType().getSimpleName());
+    }
+
+    @Override
+    public void adviceExited(String test, Annotation annotation, MethodInterceptor interceptor, Throwable failure) {
+      record(test, "exited " + annotation.annotationType().getSimpleName() + (failure == null ? "" : " failed"));
+    }
+
+    @Override
+    public void objectFactoryRegistered(String test, Annotation annotation, ObjectFactory objectFactory) {
+      record(test, "registered " + objectFactory.getObject("value", String.class));
+    }
+
+    @Override
+    public void testFinished(String test, long startNanos, Outcome outcome, Throwable failure) {
+      record(test, "finished " + test + " " + outcome);
+    }
+
+    // other test classes run alongside this one, only Listened's events are kept.
+    private static void record(String test, String event) {
+      if (recording && test != null && test.endsWith("(" + Listened.class.getName() + ")")) {
+        EVENTS.computeIfAbsent(test, key -> Collections.synchronizedList(new ArrayList<>())).add(event);
+      }
+    }
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  public static class Listened {
+
+    @Test
+    @Registering
+    public void passes() {
+    }
+
+    @Test
+    @Registering
+    public void fails() {
+      throw new IllegalStateException("expected");
+    }
+  }
+
+  @Test
+  public void eventsFollowTheTestLifecycle() {
+    Result result;
+    recording = true;
+    try {
+      result = JUnitCore.runClasses(Listened.class);
+    } finally {
+      recording = false;
+    }
+    assertThat(result.getFailureCount()).isEqualTo(1);
+
+    String passes = "passes(" + Listened.class.getName() + ")";
+    String fails = "fails(" + Listened.class.getName() + ")";
+    List<String> passesEvents = EVENTS.get(passes);
+    List<String> failsEvents = EVENTS.get(fails);
+    // preparation runs on a pool thread, alongside the advice being entered.
+    assertThat(passesEvents).containsSubsequence("started " + passes, "preparing Registering", "prepared Registering",
+            "registered registered");
+    passesEvents.removeIf(event -> event.startsWith("prepar"));
+    failsEvents.removeIf(event -> event.startsWith("prepar"));
+    assertThat(passesEvents).containsExactly("started " + passes, "entered Registering", "registered registered",
+            "exited Registering", "finished " + passes + " SUCCESS");
+    assertThat(failsEvents).containsExactly("started " + fails, "entered Registering", "registered registered",
+            "exited Registering failed", "finished " + fails + " FAILURE");
+  }
+
+}
@@ -0,0 +1,199 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.junit4.parallel;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+import org.junit.runner.notification.RunListener;
+
+import com.github.advisedtesting.core.ResourceCost;
+import com.github.advisedtesting.junit4.Junit4AopClassRunner;
+import com.github.advisedtesting.junit4.ParallelTests;
+
+public class TestParallelTests {
+
+  private static final int TESTS = 4;
+  private static final CyclicBarrier BARRIER = new CyclicBarrier(TESTS);
+  private static final Map<String, Thread> THREADS = new ConcurrentHashMap<>();
+  private static final Map<String, ClassLoader> CLASSLOADERS = new ConcurrentHashMap<>();
+
+  private static void record(String test) throws Exception {
+    THREADS.put(test, Thread.currentThread());
+    CLASSLOADERS.put(test, Thread.currentThread().getContextClassLoader());
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  @ParallelTests(threads = TESTS)
+  public static class Parallel {
+
+    // each test waits for all the others, so they only pass if they run at the same time.
+    @Test
+    public void first() throws Exception {
+      record("first");
+      BARRIER.await(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void second() throws Exception {
+      record("second");
+      BARRIER.await(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void third() throws Exception {
+      record("third");
+      BARRIER.await(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void fourth() throws Exception {
+      record("fourth");
+      BARRIER.await(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @Target({ ElementType.TYPE })
+  @Retention(RUNTIME)
+  @Documented
+  @ResourceCost(cpu = 1024)
+  public @interface WholeBudget {
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default PassThrough.class;
+  }
+
+  public static class PassThrough implements MethodInterceptor {
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      return invocation.proceed();
+    }
+  }
+
+  // the class reserves the whole budget, its tests must still be admitted.
+  @RunWith(Junit4AopClassRunner.class)
+  @ParallelTests(threads = 2)
+  @WholeBudget
+  public static class Reserving {
+
+    @Test
+    public void first() {
+    }
+
+    @Test
+    public void second() {
+    }
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  public static class Sequential {
+
+    @Test
+    public void only() throws Exception {
+      record("only");
+    }
+  }
+
+  /**
+   * Records notifications, in the order each test's thread fires them.
+   */
+  public static class OrderListener extends RunListener {
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public void testStarted(Description description) {
+      events.add("started " + description.getMethodName());
+    }
+
+    @Override
+    public void testFinished(Description description) {
+      events.add("finished " + description.getMethodName());
+    }
+  }
+
+  @Test
+  public void testsRunConcurrentlyWithTheCallersClassLoader() {
+    ClassLoader original = Thread.currentThread().getContextClassLoader();
+    ClassLoader marker = new ClassLoader(original) {
+    };
+    OrderListener listener = new OrderListener();
+    JUnitCore core = new JUnitCore();
+    core.addListener(listener);
+    Result result;
+    Thread.currentThread().setContextClassLoader(marker);
+    try {
+      result = core.run(Parallel.class);
+    } finally {
+      Thread.currentThread().setContextClassLoader(original);
+    }
+    assertThat(result.getFailures()).isEmpty();
+    assertThat(result.getRunCount()).isEqualTo(TESTS);
+
+    List<Thread> threads = new ArrayList<>();
+    for (String test : new String[] { "first", "second", "third", "fourth" }) {
+      assertThat(CLASSLOADERS.get(test)).isSameAs(marker);
+      assertThat(THREADS.get(test)).isNotSameAs(Thread.currentThread());
+      assertThat(threads.contains(THREADS.get(test))).isFalse();
+      threads.add(THREADS.get(test));
+      assertThat(listener.events.indexOf("started " + test)).isLessThan(listener.events.indexOf("finished " + test));
+    }
+  }
+
+  @Test
+  public void testsAdmittedWhenTheirClassReservesTheWholeBudget() throws Exception {
+    Result result = CompletableFuture.supplyAsync(() -> JUnitCore.runClasses(Reserving.class)).get(30, TimeUnit.SECONDS);
+    assertThat(result.getFailures()).isEmpty();
+    assertThat(result.getRunCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testsRunOnTheCallingThreadByDefault() {
+    Result result = JUnitCore.runClasses(Sequential.class);
+    assertThat(result.getFailures()).isEmpty();
+    assertThat(THREADS.get("only")).isSameAs(Thread.currentThread());
+  }
+
+}
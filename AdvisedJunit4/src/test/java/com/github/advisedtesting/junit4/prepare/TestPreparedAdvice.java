@@ -0,0 +1,357 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.junit4.prepare;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+
+import com.github.advisedtesting.core.AdviceScope;
+import com.github.advisedtesting.core.ContextAwareMethodInvocation;
+import com.github.advisedtesting.core.PreparingMethodInterceptor;
+import com.github.advisedtesting.core.internal.AdvicePool;
+import com.github.advisedtesting.core.internal.SetupBarrier;
+import com.github.advisedtesting.core.internal.SimpleObjectFactory;
+import com.github.advisedtesting.junit4.Junit4AopClassRunner;
+
+public class TestPreparedAdvice {
+
+  private static volatile CountDownLatch bothPreparing;
+  private static final List<String> DISCARDED = Collections.synchronizedList(new ArrayList<>());
+
+  @Target({ ElementType.METHOD, ElementType.PARAMETER })
+  @Retention(RUNTIME)
+  @Documented
+  @Repeatable(PreparedValues.class)
+  public @interface PreparedValue {
+    /**
+     * example.
+     * @return example.
+     */
+    String name() default "__default";
+
+    /**
+     * example.
+     * @return example.
+     */
+    boolean failBeforeReading() default false;
+
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default PreparedValueAdvice.class;
+  }
+
+  @Target({ ElementType.METHOD })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface PreparedValues {
+    /**
+     * example.
+     * @return example.
+     */
+    PreparedValue[] value();
+  }
+
+  @Target({ ElementType.METHOD })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface PreparedClassLoader {
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default PreparedClassLoaderAdvice.class;
+  }
+
+  @Target({ ElementType.METHOD })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface Plain {
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default PlainAdvice.class;
+  }
+
+  public static class PlainAdvice implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      return invocation.proceed();
+    }
+  }
+
+  @Target({ ElementType.METHOD })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface OnOtherThread {
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default OnOtherThreadAdvice.class;
+  }
+
+  @Target({ ElementType.METHOD })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface PerThread {
+    /**
+     * example.
+     * @return example.
+     */
+    AdviceScope scope() default AdviceScope.THREAD;
+
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default PerThreadAdvice.class;
+  }
+
+  public static class OnOtherThreadAdvice implements PreparingMethodInterceptor {
+
+    @Override
+    public Object prepare(Annotation annotation, ClassLoader classLoader) throws Exception {
+      return null;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      CompletableFuture<Object> proceeded = new CompletableFuture<>();
+      ClassLoader loader = Thread.currentThread().getContextClassLoader();
+      Thread other = new Thread(() -> {
+        Thread.currentThread().setContextClassLoader(loader);
+        try {
+          proceeded.complete(invocation.proceed());
+        } catch (Throwable th) {
+          proceeded.completeExceptionally(th);
+        }
+      });
+      other.start();
+      return SetupBarrier.await(proceeded);
+    }
+  }
+
+  public static class PerThreadAdvice implements PreparingMethodInterceptor {
+
+    @Override
+    public Object prepare(Annotation annotation, ClassLoader classLoader) throws Exception {
+      return this;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      if (SetupBarrier.await(((ContextAwareMethodInvocation) invocation).getPreparation()) != this) {
+        throw new IllegalStateException("invoked an instance other than the one that prepared");
+      }
+      return invocation.proceed();
+    }
+  }
+
+  public static class MarkerClassLoader extends ClassLoader {
+
+    MarkerClassLoader(ClassLoader parent) {
+      super(parent);
+    }
+  }
+
+  public static class PreparedClassLoaderAdvice implements PreparingMethodInterceptor {
+
+    @Override
+    public Object prepare(Annotation annotation, ClassLoader classLoader) throws Exception {
+      return new MarkerClassLoader(classLoader);
+    }
+
+    @Override
+    public boolean preparesClassLoader(Annotation annotation) {
+      return true;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      ClassLoader loader = (ClassLoader) SetupBarrier.await(((ContextAwareMethodInvocation) invocation).getPreparation());
+      ClassLoader previous = Thread.currentThread().getContextClassLoader();
+      try {
+        Thread.currentThread().setContextClassLoader(loader);
+        return invocation.proceed();
+      } finally {
+        Thread.currentThread().setContextClassLoader(previous);
+      }
+    }
+  }
+
+  public static class ClassLoaderRecordingAdvice extends PreparedValueAdvice {
+
+    @Override
+    public Object prepare(Annotation annotation, ClassLoader classLoader) throws Exception {
+      return classLoader;
+    }
+  }
+
+  public static class PreparedValueAdvice implements PreparingMethodInterceptor {
+
+    @Override
+    public Object prepare(Annotation annotation, ClassLoader classLoader) throws Exception {
+      CountDownLatch latch = bothPreparing;
+      latch.countDown();
+      boolean concurrent = latch.await(10, TimeUnit.SECONDS);
+      return ((PreparedValue) annotation).name() + (concurrent ? " concurrent" : " alone");
+    }
+
+    @Override
+    public void discard(Annotation annotation, Object prepared) {
+      DISCARDED.add((String) prepared);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      ContextAwareMethodInvocation cinvocation = (ContextAwareMethodInvocation) invocation;
+      PreparedValue annotation = (PreparedValue) cinvocation.getTargetAnnotation();
+      if (annotation.failBeforeReading()) {
+        throw new IllegalStateException("failed before reading " + annotation.name());
+      }
+      SimpleObjectFactory factory = new SimpleObjectFactory();
+      factory.add(annotation.name(), SetupBarrier.await(cinvocation.getPreparation()));
+      cinvocation.registerObjectFactory(factory);
+      return invocation.proceed();
+    }
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  public static class Prepared {
+
+    @Test
+    @PreparedValue(name = "first")
+    @PreparedValue(name = "second")
+    public void injected(@PreparedValue(name = "first") String first, @PreparedValue(name = "second") String second) {
+      assertThat(first).isEqualTo("first concurrent");
+      assertThat(second).isEqualTo("second concurrent");
+    }
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  public static class NestedInPreparedClassLoader {
+
+    @Test
+    @PreparedClassLoader
+    @PreparedValue(name = "loader", implementedBy = ClassLoaderRecordingAdvice.class)
+    public void preparedAgainstIt(@PreparedValue(name = "loader") ClassLoader loader) {
+      assertThat(loader).isInstanceOf(MarkerClassLoader.class);
+      assertThat(loader).isSameAs(Thread.currentThread().getContextClassLoader());
+    }
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  public static class NestedInPlainAdvice {
+
+    @Test
+    @Plain
+    @PreparedValue(name = "loader", implementedBy = ClassLoaderRecordingAdvice.class)
+    public void notPreparedAhead(@PreparedValue(name = "loader") ClassLoader loader) {
+      assertThat(loader).isNull();
+    }
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  public static class ProceedsOnOtherThread {
+
+    @Test
+    @OnOtherThread
+    @PerThread
+    public void invokesThePreparedInstance() {
+    }
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  public static class FailedBeforeReading {
+
+    @Test
+    @PreparedValue(name = "outer", failBeforeReading = true)
+    @PreparedValue(name = "inner")
+    public void neverRuns() {
+    }
+  }
+
+  @Test
+  public void advicesArePreparedConcurrently() {
+    Assume.assumeTrue(AdvicePool.get().getParallelism() > 1);
+    bothPreparing = new CountDownLatch(2);
+    Result result = JUnitCore.runClasses(Prepared.class);
+    assertThat(result.getFailures()).isEmpty();
+  }
+
+  @Test
+  public void nestedAdvicesArePreparedAgainstAPreparedClassLoader() {
+    Result result = JUnitCore.runClasses(NestedInPreparedClassLoader.class);
+    assertThat(result.getFailures()).isEmpty();
+  }
+
+  @Test
+  public void advicesNestedInAdviceThatDoesNotPrepareAreNotPrepared() {
+    Result result = JUnitCore.runClasses(NestedInPlainAdvice.class);
+    assertThat(result.getFailures()).isEmpty();
+  }
+
+  @Test
+  public void theInstanceThatPreparedIsInvoked() {
+    Result result = JUnitCore.runClasses(ProceedsOnOtherThread.class);
+    assertThat(result.getFailures()).isEmpty();
+  }
+
+  @Test
+  public void unreadPreparationsAreDiscarded() throws InterruptedException {
+    bothPreparing = new CountDownLatch(0);
+    DISCARDED.clear();
+    Result result = JUnitCore.runClasses(FailedBeforeReading.class);
+    assertThat(result.getFailureCount()).isEqualTo(1);
+    for (int i = 0; i < 100 && DISCARDED.size() < 2; i++) {
+      Thread.sleep(50);
+    }
+    assertThat(DISCARDED).containsExactlyInAnyOrder("outer concurrent", "inner concurrent");
+  }
+
+}
@@ -0,0 +1,208 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.junit4.scope;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Closeable;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+
+import com.github.advisedtesting.core.AdviceScope;
+import com.github.advisedtesting.core.ContextAwareMethodInvocation;
+import com.github.advisedtesting.junit4.Junit4AopClassRunner;
+import com.github.advisedtesting.junit4.ParallelTests;
+
+public class TestAdviceScopes {
+
+  private static final List<RecordingAdvice> PER_TEST = Collections.synchronizedList(new ArrayList<>());
+  private static final List<RecordingAdvice> PER_CLASS = Collections.synchronizedList(new ArrayList<>());
+  private static final List<RecordingAdvice> PER_THREAD = Collections.synchronizedList(new ArrayList<>());
+  // the tests record into the same lists, and the build runs test methods in parallel.
+  private static final ReentrantLock ONE_AT_A_TIME = new ReentrantLock();
+
+  @Target({ ElementType.METHOD })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface PerTest {
+    /**
+     * example.
+     * @return example.
+     */
+    AdviceScope scope() default AdviceScope.TEST;
+
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default RecordingAdvice.class;
+  }
+
+  @Target({ ElementType.METHOD })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface PerClass {
+    /**
+     * example.
+     * @return example.
+     */
+    AdviceScope scope() default AdviceScope.TEST_CLASS;
+
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default RecordingAdvice.class;
+  }
+
+  @Target({ ElementType.METHOD })
+  @Retention(RUNTIME)
+  @Documented
+  public @interface PerThread {
+    /**
+     * example.
+     * @return example.
+     */
+    AdviceScope scope() default AdviceScope.THREAD;
+
+    /**
+     * example.
+     * @return example.
+     */
+    Class<? extends MethodInterceptor> implementedBy() default RecordingAdvice.class;
+  }
+
+  public static class RecordingAdvice implements MethodInterceptor, Closeable {
+
+    private volatile boolean closed = false;
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      assertThat(closed).isFalse();
+      Class<?> type = ((ContextAwareMethodInvocation) invocation).getTargetAnnotation().annotationType();
+      if (type == PerTest.class) {
+        PER_TEST.add(this);
+      } else if (type == PerClass.class) {
+        PER_CLASS.add(this);
+      } else {
+        PER_THREAD.add(this);
+      }
+      return invocation.proceed();
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  public static class Scoped {
+
+    @Test
+    @PerClass
+    @PerThread
+    @PerTest
+    public void first() {
+    }
+
+    @Test
+    @PerClass
+    @PerThread
+    @PerTest
+    public void second() {
+    }
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  @ParallelTests(threads = 1)
+  public static class OnAWorker {
+
+    @Test
+    @PerThread
+    public void only() {
+    }
+  }
+
+  @Before
+  public void clearRecorded() {
+    ONE_AT_A_TIME.lock();
+    PER_TEST.clear();
+    PER_CLASS.clear();
+    PER_THREAD.clear();
+  }
+
+  @After
+  public void release() {
+    ONE_AT_A_TIME.unlock();
+  }
+
+  @Test
+  public void instancesFollowTheirScope() {
+    Result result = JUnitCore.runClasses(Scoped.class);
+    assertThat(result.getFailures()).isEmpty();
+
+    assertThat(PER_TEST).hasSize(2);
+    assertThat(PER_TEST.get(0)).isNotSameAs(PER_TEST.get(1));
+    assertThat(PER_TEST.get(0).closed).isTrue();
+    assertThat(PER_TEST.get(1).closed).isTrue();
+
+    assertThat(PER_CLASS).hasSize(2);
+    assertThat(PER_CLASS.get(0)).isSameAs(PER_CLASS.get(1));
+    assertThat(PER_CLASS.get(0).closed).isTrue();
+
+    assertThat(PER_THREAD).hasSize(2);
+    assertThat(PER_THREAD.get(0)).isSameAs(PER_THREAD.get(1));
+    assertThat(PER_THREAD.get(0)).isNotSameAs(PER_CLASS.get(0));
+    assertThat(PER_THREAD.get(0).closed).isFalse();
+  }
+
+  @Test
+  public void workerThreadScopeIsClosedWhenTheWorkerExits() throws InterruptedException {
+    Result result = JUnitCore.runClasses(OnAWorker.class);
+    assertThat(result.getFailures()).isEmpty();
+    assertThat(PER_THREAD).hasSize(1);
+    RecordingAdvice onWorker = PER_THREAD.get(0);
+    for (int i = 0; i < 100 && !onWorker.closed; i++) {
+      Thread.sleep(50);
+    }
+    assertThat(onWorker.closed).isTrue();
+  }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License
+ * Copyright © 2016 AdvisedTesting
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.advisedtesting.junit4.suite;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.internal.builders.AllDefaultPossibilitiesBuilder;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite.SuiteClasses;
+
+import com.github.advisedtesting.junit4.AdvisedComputer;
+import com.github.advisedtesting.junit4.AdvisedSuite;
+import com.github.advisedtesting.junit4.Junit4AopClassRunner;
+import com.github.advisedtesting.junit4.ParallelClasses;
+
+public class TestAdvisedSuite {
+
+  private static final CyclicBarrier BARRIER = new CyclicBarrier(2);
+  // the tests share the barrier and the durations system property, and the build runs test methods in parallel.
+  private static final ReentrantLock ONE_AT_A_TIME = new ReentrantLock();
+
+  private Path durations;
+
+  @RunWith(Junit4AopClassRunner.class)
+  public static class Fast {
+
+    @Test
+    public void waitsForSlow() throws Exception {
+      BARRIER.await(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  public static class Slow {
+
+    @Test
+    public void waitsForFast() throws Exception {
+      BARRIER.await(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @RunWith(Junit4AopClassRunner.class)
+  public static class Unrecorded {
+
+    @Test
+    public void passes() {
+    }
+  }
+
+  @RunWith(AdvisedSuite.class)
+  @SuiteClasses({ Fast.class, Slow.class })
+  @ParallelClasses(threads = 2)
+  public static class TwoAtOnce {
+  }
+
+  @Before
+  public void recordDurations() throws Exception {
+    ONE_AT_A_TIME.lock();
+    durations = Files.createTempDirectory("durations").resolve("durations.properties");
+    Properties properties = new Properties();
+    properties.setProperty(Fast.class.getName(), "5");
+    properties.setProperty(Slow.class.getName(), "5000");
+    try (OutputStream out = Files.newOutputStream(durations)) {
+      properties.store(out, null);
+    }
+    System.setProperty(AdvisedSuite.DURATIONS_PROPERTY, durations.toString());
+  }
+
+  @After
+  public void clearDurations() {
+    System.clearProperty(AdvisedSuite.DURATIONS_PROPERTY);
+    ONE_AT_A_TIME.unlock();
+  }
+
+  @Test
+  public void classesRunLongestExpectedFirst() throws Exception {
+    AdvisedSuite suite = new AdvisedSuite(new AllDefaultPossibilitiesBuilder(),
+            new Class<?>[] { Fast.class, Slow.class, Unrecorded.class }, 2);
+    List<String> order = suite.getDescription().getChildren().stream().map(child -> child.getClassName())
+            .collect(Collectors.toList());
+    assertThat(order).containsExactly(Unrecorded.class.getName(), Slow.class.getName(), Fast.class.getName());
+  }
+
+  @Test
+  public void classesRunConcurrentlyAndDurationsAreRecorded() throws Exception {
+    Result result = new JUnitCore().run(new AdvisedComputer(2), Fast.class, Slow.class);
+    assertThat(result.getFailures()).isEmpty();
+    assertThat(result.getRunCount()).isEqualTo(2);
+
+    Properties recorded = new Properties();
+    try (InputStream in = Files.newInputStream(durations)) {
+      recorded.load(in);
+    }
+    // both only waited for each other, far less than Slow's recorded five seconds.
+    assertThat(Long.parseLong(recorded.getProperty(Slow.class.getName())) < 5000).isTrue();
+    assertThat(recorded.getProperty(Fast.class.getName())).isNotNull();
+  }
+
+  @Test
+  public void suiteClassSetsTheThreadCount() {
+    Result result = JUnitCore.runClasses(TwoAtOnce.class);
+    assertThat(result.getFailures()).isEmpty();
+    assertThat(result.getRunCount()).isEqualTo(2);
+  }
+
+}